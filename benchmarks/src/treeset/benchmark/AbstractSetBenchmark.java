@@ -0,0 +1,192 @@
+package treeset.benchmark;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+
+import treeset.Balancing;
+import treeset.MyTreeSet;
+
+
+/**
+ * Single-threaded benchmarks of add, contains, remove and iteration, with
+ * java.util.TreeSet as the baseline. The subclasses declare the parameters:
+ * every combination of implementation, ordering, key stream and size they
+ * list is measured.
+ * <p>
+ * build adds every key of the stream to an empty set and is reported as time
+ * per set. contains and removeAndAdd work on a set filled with the stream, are
+ * reported as throughput and as sampled latencies, which give the
+ * percentiles. iterate walks the filled set once.
+ * <p>
+ * An unbalanced MyTreeSet degenerates into a list on the sorted and reversed
+ * streams, so a single build of millions of keys would take hours. It is
+ * therefore measured by UnbalancedSetBenchmark, whose sizes stop at 10 000,
+ * and the balanced implementations by SetBenchmark.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public abstract class AbstractSetBenchmark {
+
+	private static final int PROBE_COUNT = 1 << 16;
+
+	private Integer[] keys;
+	private Integer[] probes;
+	private Target filled;
+	private int nextProbe;
+
+	/**
+	 * Returns the implementation parameter: MyTreeSet, MyTreeSetAVL,
+	 * MyTreeSetSplay or TreeSet.
+	 */
+	abstract String implementation();
+
+	/**
+	 * Returns the ordering parameter: natural or comparator.
+	 */
+	abstract String ordering();
+
+	abstract KeyStream stream();
+
+	abstract int size();
+
+	@Setup
+	public void setUp(){
+		Random random = new Random(42);
+		keys = stream().keys(size(), random);
+		probes = stream().probes(keys, PROBE_COUNT, random);
+
+		filled = newTarget();
+		for (Integer key : keys){
+			filled.add(key);
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object build(){
+		Target target = newTarget();
+		for (Integer key : keys){
+			target.add(key);
+		}
+		return target;
+	}
+
+	@Benchmark
+	@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public boolean contains(){
+		return filled.contains(probes[nextProbe++ & (PROBE_COUNT - 1)]);
+	}
+
+	@Benchmark
+	@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object removeAndAdd(){
+		Integer key = probes[nextProbe++ & (PROBE_COUNT - 1)];
+		filled.remove(key);
+		filled.add(key);
+		return filled;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public long iterate(){
+		long sum = 0;
+		Iterator<Integer> iter = filled.iterator();
+		while (iter.hasNext()){
+			sum += iter.next();
+		}
+		return sum;
+	}
+
+	private Target newTarget(){
+		boolean comparator = ordering().equals("comparator");
+		String implementation = implementation();
+
+		if (implementation.equals("TreeSet")){
+			return new TreeSetTarget(comparator ? new TreeSet<Integer>(new IntegerOrder()) : new TreeSet<Integer>());
+		}
+
+		Balancing balancing = Balancing.NONE;
+		if (implementation.equals("MyTreeSetAVL")){
+			balancing = Balancing.AVL;
+		} else if (implementation.equals("MyTreeSetSplay")){
+			balancing = Balancing.SPLAY;
+		}
+		return new MyTreeSetTarget(comparator ? new MyTreeSet<Integer>(new IntegerOrder(), balancing) : new MyTreeSet<Integer>(balancing));
+	}
+
+
+	/**
+	 * The operations that are measured, for any of the implementations. Only
+	 * one implementation is loaded in each fork, so the calls stay monomorphic.
+	 */
+	private interface Target {
+		void add(Integer key);
+		boolean contains(Integer key);
+		void remove(Integer key);
+		Iterator<Integer> iterator();
+	}
+
+	private static class MyTreeSetTarget implements Target {
+
+		private final MyTreeSet<Integer> set;
+
+		MyTreeSetTarget(MyTreeSet<Integer> set){
+			this.set = set;
+		}
+
+		public void add(Integer key){
+			set.add(key);
+		}
+
+		public boolean contains(Integer key){
+			return set.contains(key);
+		}
+
+		public void remove(Integer key){
+			set.remove(key);
+		}
+
+		public Iterator<Integer> iterator(){
+			return set.iterator();
+		}
+	}
+
+	private static class TreeSetTarget implements Target {
+
+		private final TreeSet<Integer> set;
+
+		TreeSetTarget(TreeSet<Integer> set){
+			this.set = set;
+		}
+
+		public void add(Integer key){
+			set.add(key);
+		}
+
+		public boolean contains(Integer key){
+			return set.contains(key);
+		}
+
+		public void remove(Integer key){
+			set.remove(key);
+		}
+
+		public Iterator<Integer> iterator(){
+			return set.iterator();
+		}
+	}
+
+}
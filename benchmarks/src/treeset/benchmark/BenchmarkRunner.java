@@ -0,0 +1,34 @@
+package treeset.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Main class of the benchmark jar. Accepts the usual JMH command line
+ * options, and always adds the GC profiler, so every result comes with the
+ * allocation rate per operation next to the throughput and the latency
+ * percentiles.
+ * <p>
+ * Build with mvn package and run for example
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar treeset.benchmark.SetBenchmark -p size=1000,100000
+ * </pre>
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException{
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,153 @@
+package treeset.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import treeset.Balancing;
+import treeset.ConcurrentMyTreeSet;
+import treeset.LockFreeSortedSet;
+import treeset.MyTreeSet;
+
+
+/**
+ * Multi-threaded benchmark of the thread-safe sets against a MyTreeSet
+ * guarded by synchronized. Every thread mixes lookups with additions and
+ * removals of random keys, in the ratio given by writePercent. Run it with
+ * an increasing number of threads to see how each set scales, for example
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ConcurrentSetBenchmark -t 4
+ * </pre>
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConcurrentSetBenchmark {
+
+	@Param({"synchronized", "ConcurrentMyTreeSet", "LockFreeSortedSet"})
+	public String implementation;
+
+	@Param({"0", "10", "50"})
+	public int writePercent;
+
+	@Param({"100000"})
+	public int size;
+
+	private Target set;
+
+	@Setup
+	public void setUp(){
+		if (implementation.equals("synchronized")){
+			set = new SynchronizedTarget();
+		} else if (implementation.equals("ConcurrentMyTreeSet")){
+			set = new ConcurrentTarget();
+		} else {
+			set = new LockFreeTarget();
+		}
+
+		Random random = new Random(42);
+		for (int i = 0; i < size; ++i){
+			set.add(random.nextInt(2 * size));
+		}
+	}
+
+	/**
+	 * The random numbers of one thread.
+	 */
+	@State(Scope.Thread)
+	public static class ThreadRandom {
+		final Random random = new Random();
+	}
+
+	@Benchmark
+	public boolean mixed(ThreadRandom threadRandom){
+		Random random = threadRandom.random;
+		Integer key = random.nextInt(2 * size);
+
+		int operation = random.nextInt(200);
+		if (operation < writePercent){
+			set.add(key);
+			return true;
+		} else if (operation < 2 * writePercent){
+			set.remove(key);
+			return false;
+		}
+		return set.contains(key);
+	}
+
+
+	private interface Target {
+		void add(Integer key);
+		boolean contains(Integer key);
+		void remove(Integer key);
+	}
+
+	private static class SynchronizedTarget implements Target {
+
+		private final MyTreeSet<Integer> set = new MyTreeSet<Integer>(Balancing.AVL);
+
+		public synchronized void add(Integer key){
+			set.add(key);
+		}
+
+		public synchronized boolean contains(Integer key){
+			return set.contains(key);
+		}
+
+		public synchronized void remove(Integer key){
+			set.remove(key);
+		}
+	}
+
+	private static class ConcurrentTarget implements Target {
+
+		private final ConcurrentMyTreeSet<Integer> set = new ConcurrentMyTreeSet<Integer>();
+
+		public void add(Integer key){
+			set.add(key);
+		}
+
+		public boolean contains(Integer key){
+			return set.contains(key);
+		}
+
+		public void remove(Integer key){
+			set.remove(key);
+		}
+	}
+
+	private static class LockFreeTarget implements Target {
+
+		private final LockFreeSortedSet<Integer> set = new LockFreeSortedSet<Integer>();
+
+		public void add(Integer key){
+			set.add(key);
+		}
+
+		public boolean contains(Integer key){
+			return set.contains(key);
+		}
+
+		public void remove(Integer key){
+			set.remove(key);
+		}
+	}
+
+}
@@ -0,0 +1,18 @@
+package treeset.benchmark;
+
+import java.util.Comparator;
+
+
+/**
+ * Comparator with the natural ordering of Integer. Installing it measures
+ * the cost of comparing through a comparator instead of compareTo.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class IntegerOrder implements Comparator<Integer>{
+
+	public int compare(Integer o1, Integer o2){
+		return Integer.compare(o1, o2);
+	}
+}
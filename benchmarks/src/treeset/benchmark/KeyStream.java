@@ -0,0 +1,105 @@
+package treeset.benchmark;
+
+import java.util.Random;
+
+
+/**
+ * The orders in which the benchmarks feed keys to the sets. Every stream
+ * produces the same number of keys for a given size, but in a different
+ * order and, for ZIPF, with a different spread.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public enum KeyStream {
+
+	/**
+	 * Uniformly random keys.
+	 */
+	RANDOM {
+		Integer[] keys(int size, Random random){
+			Integer[] keys = new Integer[size];
+			for (int i = 0; i < size; ++i){
+				keys[i] = random.nextInt();
+			}
+			return keys;
+		}
+	},
+
+	/**
+	 * Even keys in ascending order, the worst case for an unbalanced tree.
+	 */
+	SORTED {
+		Integer[] keys(int size, Random random){
+			Integer[] keys = new Integer[size];
+			for (int i = 0; i < size; ++i){
+				keys[i] = 2 * i;
+			}
+			return keys;
+		}
+	},
+
+	/**
+	 * Even keys in descending order.
+	 */
+	REVERSE {
+		Integer[] keys(int size, Random random){
+			Integer[] keys = new Integer[size];
+			for (int i = 0; i < size; ++i){
+				keys[i] = 2 * (size - 1 - i);
+			}
+			return keys;
+		}
+	},
+
+	/**
+	 * Keys drawn with a Zipf distribution of exponent 1 over size ranks, so a
+	 * few keys occur very often. The ranks are scattered over the key space,
+	 * so the hot keys aren't neighbours in the tree.
+	 */
+	ZIPF {
+		Integer[] keys(int size, Random random){
+			Integer[] keys = new Integer[size];
+			for (int i = 0; i < size; ++i){
+				keys[i] = zipfKey(size, random);
+			}
+			return keys;
+		}
+
+		Integer[] probes(Integer[] keys, int count, Random random){
+			Integer[] probes = new Integer[count];
+			for (int i = 0; i < count; ++i){
+				probes[i] = zipfKey(keys.length, random);
+			}
+			return probes;
+		}
+	};
+
+	/**
+	 * Returns the keys of the stream in the order they are to be added.
+	 */
+	abstract Integer[] keys(int size, Random random);
+
+	/**
+	 * Returns keys to search for. Apart from ZIPF, the keys are picked
+	 * uniformly from the added ones.
+	 */
+	Integer[] probes(Integer[] keys, int count, Random random){
+		Integer[] probes = new Integer[count];
+		for (int i = 0; i < count; ++i){
+			probes[i] = keys[random.nextInt(keys.length)];
+		}
+		return probes;
+	}
+
+	/**
+	 * Draws a rank between 1 and size whose probability is proportional to
+	 * one over the rank, by inverting the approximate distribution function
+	 * ln(rank) / ln(size), and scatters it with a multiplicative hash.
+	 */
+	private static int zipfKey(int size, Random random){
+		long rank = (long) Math.pow(size, random.nextDouble());
+		return (int) (rank * 0x9E3779B1L);
+	}
+
+}
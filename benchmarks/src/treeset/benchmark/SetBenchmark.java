@@ -0,0 +1,54 @@
+package treeset.benchmark;
+
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * The benchmarks of AbstractSetBenchmark for the balanced implementations
+ * and java.util.TreeSet, from 1 000 up to 10 million keys. A splay tree
+ * becomes a list on the sorted and reversed streams too, but every add then
+ * lands next to the root, so it is measured at every size. On the ZIPF
+ * stream the splay tree keeps the hot keys near the root.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SetBenchmark extends AbstractSetBenchmark {
+
+	@Param({"MyTreeSetAVL", "MyTreeSetSplay", "TreeSet"})
+	public String implementation;
+
+	@Param({"natural", "comparator"})
+	public String ordering;
+
+	@Param({"RANDOM", "SORTED", "REVERSE", "ZIPF"})
+	public KeyStream stream;
+
+	@Param({"1000", "100000", "1000000", "10000000"})
+	public int size;
+
+	String implementation(){
+		return implementation;
+	}
+
+	String ordering(){
+		return ordering;
+	}
+
+	KeyStream stream(){
+		return stream;
+	}
+
+	int size(){
+		return size;
+	}
+}
@@ -0,0 +1,52 @@
+package treeset.benchmark;
+
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * The benchmarks of AbstractSetBenchmark for the unbalanced MyTreeSet. The
+ * tree degenerates into a list on the sorted and reversed streams, where a
+ * build is quadratic, so the sizes stop at 10 000 keys.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UnbalancedSetBenchmark extends AbstractSetBenchmark {
+
+	@Param({"MyTreeSet"})
+	public String implementation;
+
+	@Param({"natural", "comparator"})
+	public String ordering;
+
+	@Param({"RANDOM", "SORTED", "REVERSE", "ZIPF"})
+	public KeyStream stream;
+
+	@Param({"1000", "10000"})
+	public int size;
+
+	String implementation(){
+		return implementation;
+	}
+
+	String ordering(){
+		return ordering;
+	}
+
+	KeyStream stream(){
+		return stream;
+	}
+
+	int size(){
+		return size;
+	}
+}
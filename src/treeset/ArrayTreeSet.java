@@ -0,0 +1,615 @@
+package treeset;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Set based on a binary search tree with the same behaviour as MyTreeSet, but
+ * with the nodes stored in parallel arrays instead of as Node objects. A node
+ * is an index into the arrays, and the children, the parent and the neighbours
+ * in the linked list spanning the tree are stored as indices as well. The set
+ * therefore only consists of a handful of objects no matter how many elements
+ * it contains, and nodes that are close in the tree tend to be close in memory.
+ * <p>
+ * The arrays grow in chunks of twice the previous capacity. Nodes freed by
+ * remove are reused by later adds.
+ *
+ * @param <T>
+ * - the datatype of the elements contained in the set
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class ArrayTreeSet<T extends Comparable<T> > implements Iterable<T>{
+
+	private static final int NIL = -1;
+	private static final int HEAD = 0;
+	private static final int TAIL = 1;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Object[] values;
+	private int[] leftChildren;
+	private int[] rightChildren;
+	private int[] parents;
+	private int[] nextSmallest;
+	private int[] nextLargest;
+	private byte[] heights;
+
+	private int root;
+	private int freeNode;
+	private int usedNodes;
+
+	private int size;
+	private Comparator<T> comparator;
+	private Balancing balancing;
+	private int modCount;
+
+	/**
+	 * Creates an empty ArrayTreeSet object. Any comparisons between elements
+	 * will be done with the compareTo. The tree isn't balanced.
+	 */
+	public ArrayTreeSet(){
+		comparator = new NaturalOrder<T>();
+		balancing = Balancing.NONE;
+
+		values = new Object[INITIAL_CAPACITY];
+		leftChildren = new int[INITIAL_CAPACITY];
+		rightChildren = new int[INITIAL_CAPACITY];
+		parents = new int[INITIAL_CAPACITY];
+		nextSmallest = new int[INITIAL_CAPACITY];
+		nextLargest = new int[INITIAL_CAPACITY];
+		heights = new byte[INITIAL_CAPACITY];
+
+		root = NIL;
+		freeNode = NIL;
+		usedNodes = 2;
+
+		nextSmallest[HEAD] = NIL;
+		nextLargest[HEAD] = TAIL;
+		nextSmallest[TAIL] = HEAD;
+		nextLargest[TAIL] = NIL;
+
+		size = 0;
+		modCount = 0;
+	}
+
+	/**
+	 * Creates an empty ArrayTreeSet object and installs the supplied comparator.
+	 * Any comparisons between elements will be done with the comparator.
+	 *
+	 * @param comparator
+	 * - the comparator that is to be used to compare elements in the set.
+	 *
+	 * @throws
+	 * NullPointerException if comparator is null.
+	 */
+	public ArrayTreeSet(Comparator<T> comparator){
+		this();
+
+		if(comparator == null){
+			throw new NullPointerException("Comparator can't be null.");
+		}
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Creates an empty ArrayTreeSet object that keeps its tree in shape with
+	 * the supplied balancing strategy. Any comparisons between elements will be
+	 * done with the compareTo.
+	 *
+	 * @param balancing
+	 * - the balancing strategy to use for the tree.
+	 *
+	 * @throws
+	 * NullPointerException if balancing is null.
+	 * @throws
+	 * IllegalArgumentException if balancing is SPLAY, which ArrayTreeSet
+	 * doesn't support.
+	 */
+	public ArrayTreeSet(Balancing balancing){
+		this();
+
+		if (balancing == null){
+			throw new NullPointerException("Balancing can't be null.");
+		}
+		if (balancing == Balancing.SPLAY){
+			throw new IllegalArgumentException("ArrayTreeSet doesn't support splaying.");
+		}
+		this.balancing = balancing;
+	}
+
+	/**
+	 * Creates an empty ArrayTreeSet object that installs the supplied
+	 * comparator and keeps its tree in shape with the supplied balancing
+	 * strategy.
+	 *
+	 * @param comparator
+	 * - the comparator that is to be used to compare elements in the set.
+	 * @param balancing
+	 * - the balancing strategy to use for the tree.
+	 *
+	 * @throws
+	 * NullPointerException if comparator or balancing is null.
+	 * @throws
+	 * IllegalArgumentException if balancing is SPLAY.
+	 */
+	public ArrayTreeSet(Comparator<T> comparator, Balancing balancing){
+		this(comparator);
+
+		if (balancing == null){
+			throw new NullPointerException("Balancing can't be null.");
+		}
+		if (balancing == Balancing.SPLAY){
+			throw new IllegalArgumentException("ArrayTreeSet doesn't support splaying.");
+		}
+		this.balancing = balancing;
+	}
+
+	/**
+	 * Adds one element to the set. Does nothing if the set already contains
+	 * the element.
+	 *
+	 * @param element
+	 * - the element to add to the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void add(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		if (root == NIL){
+			root = newNode(element);
+			parents[root] = NIL;
+			addNewNodeToList(HEAD, root);
+
+			++size;
+			++modCount;
+			return;
+		}
+
+		int currNode = root;
+		while (true){
+			int cmp = comparator.compare(value(currNode), element);
+			if (cmp > 0){
+				if (leftChildren[currNode] == NIL){
+					int leftChild = newNode(element);
+					leftChildren[currNode] = leftChild;
+					parents[leftChild] = currNode;
+					addNewNodeToList(leftChild, currNode);
+					break;
+				}
+				currNode = leftChildren[currNode];
+
+			} else if (cmp < 0){
+				if (rightChildren[currNode] == NIL){
+					int rightChild = newNode(element);
+					rightChildren[currNode] = rightChild;
+					parents[rightChild] = currNode;
+					addNewNodeToList(currNode, rightChild);
+					break;
+				}
+				currNode = rightChildren[currNode];
+
+			} else {
+				return;
+			}
+		}
+		++size;
+		++modCount;
+
+		if (balancing == Balancing.AVL){
+			rebalance(currNode);
+		}
+	} // add
+
+	/**
+	 * Checks if the element is present in the set.
+	 *
+	 * @param element
+	 * The element to search for.
+	 * @return
+	 * True if the element is present, otherwise false.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public boolean contains(T element){
+		if(element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		return findNode(element) != NIL;
+	} // contains
+
+	/**
+	 * Removes the specified element from the set. Does nothing if the set doesn't
+	 * contain the element.
+	 *
+	 * @param element
+	 * - the element to remove from the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void remove(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		int toRemove = findNode(element);
+		if (toRemove != NIL){
+			removeNode(toRemove);
+		}
+	} // remove
+
+	/**
+	 * Returns the size of the set, i.e. the number of elements in the set.
+	 * @return
+	 * the size of the set.
+	 */
+	public int size(){
+		return size;
+	} // size
+
+	/**
+	 * Returns a string representation of the set.
+	 * @return
+	 * - a string representing the set
+	 */
+	public String toString(){
+		StringBuilder builder = new StringBuilder();
+
+		int tmpNode = nextLargest[HEAD];
+		while (tmpNode != TAIL){
+			if (builder.length() != 0){
+				builder.append( ", " );
+			}
+
+			builder.append( values[tmpNode] );
+			tmpNode = nextLargest[tmpNode];
+		}
+
+		return "[" + builder.toString() + "]";
+	}
+
+	/**
+	 * Returns an iterator belonging to ArrayTreeSet.
+	 */
+	public Iterator<T> iterator(){
+		return new ArrayTreeSetIterator();
+	} // iterator
+
+	@SuppressWarnings("unchecked")
+	private T value(int node){
+		return (T) values[node];
+	}
+
+	/**
+	 * Searches for the node containing the element, comparing the element once
+	 * with every visited node.
+	 *
+	 * @return
+	 * the node containing the element, or NIL if the element isn't present.
+	 */
+	private int findNode(T element){
+		int currNode = root;
+
+		while (currNode != NIL){
+			int cmp = comparator.compare(value(currNode), element);
+			if (cmp > 0){
+				currNode = leftChildren[currNode];
+			} else if (cmp < 0){
+				currNode = rightChildren[currNode];
+			} else {
+				return currNode;
+			}
+		}
+		return NIL;
+	} // findNode
+
+	/**
+	 * Takes a free node, or a new one at the end of the arrays, and stores the
+	 * supplied element in it. The arrays are grown if they are full.
+	 *
+	 * @return
+	 * the index of the node.
+	 */
+	private int newNode(T element){
+		int node;
+		if (freeNode != NIL){
+			node = freeNode;
+			freeNode = leftChildren[node];
+		} else {
+			if (usedNodes == values.length){
+				grow();
+			}
+			node = usedNodes++;
+		}
+
+		values[node] = element;
+		leftChildren[node] = NIL;
+		rightChildren[node] = NIL;
+		nextSmallest[node] = NIL;
+		nextLargest[node] = NIL;
+		heights[node] = 1;
+		return node;
+	} // newNode
+
+	/**
+	 * Puts the node on the list of free nodes, which is linked through the left
+	 * children of the free nodes. The element is cleared so that it can be
+	 * garbage collected.
+	 */
+	private void releaseNode(int node){
+		values[node] = null;
+		leftChildren[node] = freeNode;
+		freeNode = node;
+	}
+
+	/**
+	 * Doubles the capacity of the arrays.
+	 */
+	private void grow(){
+		int capacity = values.length * 2;
+		values = Arrays.copyOf(values, capacity);
+		leftChildren = Arrays.copyOf(leftChildren, capacity);
+		rightChildren = Arrays.copyOf(rightChildren, capacity);
+		parents = Arrays.copyOf(parents, capacity);
+		nextSmallest = Arrays.copyOf(nextSmallest, capacity);
+		nextLargest = Arrays.copyOf(nextLargest, capacity);
+		heights = Arrays.copyOf(heights, capacity);
+	}
+
+	/**
+	 * Adds one new node to the linked list spanning the tree, next to a node
+	 * already in the list. The new node is either smaller or larger.
+	 *
+	 * @param smaller
+	 * - the smaller of the two nodes
+	 * @param larger
+	 * - the larger of the two nodes
+	 */
+	private void addNewNodeToList(int smaller, int larger){
+
+		if (nextLargest[smaller] != NIL){
+			int tmpNode = nextLargest[smaller];
+
+			nextLargest[larger] = tmpNode;
+			nextSmallest[tmpNode] = larger;
+		} else if (nextSmallest[larger] != NIL){
+			int tmpNode = nextSmallest[larger];
+
+			nextSmallest[smaller] = tmpNode;
+			nextLargest[tmpNode] = smaller;
+		}
+
+		nextLargest[smaller] = larger;
+		nextSmallest[larger] = smaller;
+	}
+
+	/**
+	 * Removes the specified node from the linked list spanning through the tree.
+	 */
+	private void removeFromList(int toRemove){
+		int smaller = nextSmallest[toRemove];
+		int larger = nextLargest[toRemove];
+
+		nextLargest[smaller] = larger;
+		nextSmallest[larger] = smaller;
+	}
+
+	/**
+	 * Removes the supplied node from the tree and from the linked list. If the
+	 * node has two children its next largest neighbour is moved into the
+	 * removed node's place. The tree is rebalanced if the set is balanced.
+	 */
+	private void removeNode(int currNode){
+		int leftChild = leftChildren[currNode];
+		int rightChild = rightChildren[currNode];
+		int parent = parents[currNode];
+		int changedNode;
+
+		if (leftChild != NIL && rightChild != NIL){
+			int successor = nextLargest[currNode];
+
+			if (successor != rightChild){
+				changedNode = parents[successor];
+				setLeftChild(changedNode, rightChildren[successor]);
+				setRightChild(successor, rightChild);
+			} else {
+				changedNode = successor;
+			}
+			setLeftChild(successor, leftChild);
+			heights[successor] = heights[currNode];
+			replaceChild(parent, currNode, successor);
+
+		} else if (leftChild != NIL){
+			changedNode = parent;
+			replaceChild(parent, currNode, leftChild);
+
+		} else {
+			changedNode = parent;
+			replaceChild(parent, currNode, rightChild);
+		}
+		removeFromList(currNode);
+		releaseNode(currNode);
+
+		--size;
+		++modCount;
+
+		if (balancing == Balancing.AVL){
+			rebalance(changedNode);
+		}
+	} // removeNode
+
+	private void setLeftChild(int parent, int child){
+		leftChildren[parent] = child;
+		if (child != NIL){
+			parents[child] = parent;
+		}
+	}
+
+	private void setRightChild(int parent, int child){
+		rightChildren[parent] = child;
+		if (child != NIL){
+			parents[child] = parent;
+		}
+	}
+
+	/**
+	 * Puts newChild in oldChild's place under the supplied parent. If parent is
+	 * NIL, oldChild is the root and newChild becomes the new root.
+	 */
+	private void replaceChild(int parent, int oldChild, int newChild){
+		if (parent == NIL){
+			root = newChild;
+			if (newChild != NIL){
+				parents[newChild] = NIL;
+			}
+		} else if (leftChildren[parent] == oldChild){
+			setLeftChild(parent, newChild);
+		} else {
+			setRightChild(parent, newChild);
+		}
+	}
+
+	/**
+	 * Walks from the supplied node towards the root, updating the heights and
+	 * rotating every node that has become unbalanced. The walk stops as soon
+	 * as a subtree keeps the height it had before.
+	 */
+	private void rebalance(int currNode){
+		while (currNode != NIL){
+			int oldHeight = heights[currNode];
+			int balance = height(leftChildren[currNode]) - height(rightChildren[currNode]);
+
+			if (balance > 1){
+				int leftChild = leftChildren[currNode];
+				if (height(leftChildren[leftChild]) < height(rightChildren[leftChild])){
+					rotateLeft(leftChild);
+				}
+				currNode = rotateRight(currNode);
+
+			} else if (balance < -1){
+				int rightChild = rightChildren[currNode];
+				if (height(rightChildren[rightChild]) < height(leftChildren[rightChild])){
+					rotateRight(rightChild);
+				}
+				currNode = rotateLeft(currNode);
+
+			} else {
+				updateHeight(currNode);
+			}
+
+			if (heights[currNode] == oldHeight){
+				return;
+			}
+			currNode = parents[currNode];
+		}
+	} // rebalance
+
+	private int rotateLeft(int currNode){
+		int newSubroot = rightChildren[currNode];
+
+		replaceChild(parents[currNode], currNode, newSubroot);
+		setRightChild(currNode, leftChildren[newSubroot]);
+		setLeftChild(newSubroot, currNode);
+
+		updateHeight(currNode);
+		updateHeight(newSubroot);
+		return newSubroot;
+	}
+
+	private int rotateRight(int currNode){
+		int newSubroot = leftChildren[currNode];
+
+		replaceChild(parents[currNode], currNode, newSubroot);
+		setLeftChild(currNode, rightChildren[newSubroot]);
+		setRightChild(newSubroot, currNode);
+
+		updateHeight(currNode);
+		updateHeight(newSubroot);
+		return newSubroot;
+	}
+
+	private void updateHeight(int currNode){
+		heights[currNode] = (byte) (1 + Math.max(height(leftChildren[currNode]), height(rightChildren[currNode])));
+	}
+
+	private int height(int currNode){
+		return currNode == NIL ? 0 : heights[currNode];
+	}
+
+
+	/**
+	 * Used to iterate over the elements in an ArrayTreeSet object by following
+	 * the linked list spanning the tree.
+	 */
+	private class ArrayTreeSetIterator implements Iterator<T>{
+
+		private int currentNode;
+		private int expectedCount;
+		private boolean removalValid;
+
+		public ArrayTreeSetIterator(){
+			expectedCount = modCount;
+			removalValid = false;
+			currentNode = HEAD;
+		}
+
+		public boolean hasNext(){
+			return nextLargest[currentNode] != TAIL;
+		}
+
+		/**
+		 * Returns the next element in the set.
+		 *
+		 * @throws
+		 * NoSuchElementException if there are no more elements in the set.
+		 * @throws
+		 * ConcurrentModificationException if the set has been modified by someone
+		 * else than the iterator.
+		 */
+		public T next(){
+			if(!hasNext())
+				throw new NoSuchElementException();
+			if(expectedCount != modCount)
+				throw new ConcurrentModificationException();
+			removalValid = true;
+			currentNode = nextLargest[currentNode];
+
+			return value(currentNode);
+		}
+
+		/**
+		 * Removes the element last returned by next. The iterator steps back to
+		 * the previous node, since the removed node is freed and may be reused.
+		 *
+		 * @throws
+		 * IllegalStateException if a call to next() hasn't been done.
+		 * @throws
+		 * ConcurrentModificationException if the set has been modified by someone
+		 * else than the iterator.
+		 */
+		public void remove(){
+			if(!removalValid)
+				throw new IllegalStateException();
+			if(expectedCount != modCount)
+				throw new ConcurrentModificationException();
+			removalValid = false;
+
+			int toRemove = currentNode;
+			currentNode = nextSmallest[toRemove];
+			removeNode(toRemove);
+			expectedCount = modCount;
+		}
+	} // ArrayTreeSetIterator
+
+} // ArrayTreeSet
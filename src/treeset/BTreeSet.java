@@ -0,0 +1,614 @@
+package treeset;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Set based on a B+-tree. The elements in the set are kept in order. Either by
+ * using the compareTo-method or the supplied comparator. The set does not
+ * contain any duplicates.
+ * <p>
+ * Every node of the tree holds up to nodeCapacity keys in one array, so a
+ * lookup only visits a handful of nodes and searches each of them with a
+ * binary search. All elements are stored in the leaves. The leaves are linked
+ * in order, which replaces the linked list spanning the tree in MyTreeSet.
+ *
+ * @param <T>
+ * - the datatype of the elements contained in the set
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class BTreeSet<T extends Comparable<T> > implements Iterable<T>{
+
+	private static final int DEFAULT_NODE_CAPACITY = 64;
+	private static final int MIN_NODE_CAPACITY = 4;
+
+	private Page root;
+	private Leaf firstLeaf;
+
+	private int maxKeys;
+	private int minKeys;
+
+	private int size;
+	private Comparator<T> comparator;
+	private int modCount;
+
+	/**
+	 * Creates an empty BTreeSet object. Any comparisons between elements will
+	 * be done with the compareTo.
+	 */
+	public BTreeSet(){
+		this(DEFAULT_NODE_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty BTreeSet object whose nodes hold up to nodeCapacity
+	 * keys. Any comparisons between elements will be done with the compareTo.
+	 *
+	 * @param nodeCapacity
+	 * - the maximum number of keys in one node.
+	 *
+	 * @throws
+	 * IllegalArgumentException if nodeCapacity is less than 4.
+	 */
+	public BTreeSet(int nodeCapacity){
+		if (nodeCapacity < MIN_NODE_CAPACITY){
+			throw new IllegalArgumentException("Node capacity can't be less than " + MIN_NODE_CAPACITY + ".");
+		}
+		maxKeys = nodeCapacity;
+		minKeys = nodeCapacity / 2;
+
+		firstLeaf = new Leaf(maxKeys);
+		root = firstLeaf;
+
+		comparator = new NaturalOrder<T>();
+		size = 0;
+		modCount = 0;
+	}
+
+	/**
+	 * Creates an empty BTreeSet object and installs the supplied comparator.
+	 * Any comparisons between elements will be done with the comparator.
+	 *
+	 * @param comparator
+	 * - the comparator that is to be used to compare elements in the set.
+	 *
+	 * @throws
+	 * NullPointerException if comparator is null.
+	 */
+	public BTreeSet(Comparator<T> comparator){
+		this(comparator, DEFAULT_NODE_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty BTreeSet object whose nodes hold up to nodeCapacity keys
+	 * and installs the supplied comparator.
+	 *
+	 * @param comparator
+	 * - the comparator that is to be used to compare elements in the set.
+	 * @param nodeCapacity
+	 * - the maximum number of keys in one node.
+	 *
+	 * @throws
+	 * NullPointerException if comparator is null.
+	 * @throws
+	 * IllegalArgumentException if nodeCapacity is less than 4.
+	 */
+	public BTreeSet(Comparator<T> comparator, int nodeCapacity){
+		this(nodeCapacity);
+
+		if(comparator == null){
+			throw new NullPointerException("Comparator can't be null.");
+		}
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Adds one element to the set. Does nothing if the set already contains
+	 * the element.
+	 *
+	 * @param element
+	 * - the element to add to the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void add(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		Split split = insert(root, element);
+		if (split != null){
+			Inner newRoot = new Inner(maxKeys);
+			newRoot.keys[0] = split.key;
+			newRoot.children[0] = root;
+			newRoot.children[1] = split.right;
+			newRoot.count = 1;
+
+			root = newRoot;
+		}
+	} // add
+
+	/**
+	 * Checks if the element is present in the set.
+	 *
+	 * @param element
+	 * The element to search for.
+	 * @return
+	 * True if the element is present, otherwise false.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public boolean contains(T element){
+		if(element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		return search(findLeaf(element), element) >= 0;
+	} // contains
+
+	/**
+	 * Removes the specified element from the set. Does nothing if the set doesn't
+	 * contain the element.
+	 *
+	 * @param element
+	 * - the element to remove from the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void remove(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		if (delete(root, element) && root.count == 0 && root instanceof Inner){
+			root = ((Inner) root).children[0];
+		}
+	} // remove
+
+	/**
+	 * Returns the size of the set, i.e. the number of elements in the set.
+	 * @return
+	 * the size of the set.
+	 */
+	public int size(){
+		return size;
+	} // size
+
+	/**
+	 * Returns a string representation of the set.
+	 * @return
+	 * - a string representing the set
+	 */
+	public String toString(){
+		StringBuilder builder = new StringBuilder();
+
+		for (Leaf leaf = firstLeaf; leaf != null; leaf = leaf.next){
+			for (int i = 0; i < leaf.count; ++i){
+				if (builder.length() != 0){
+					builder.append( ", " );
+				}
+				builder.append( leaf.keys[i] );
+			}
+		}
+
+		return "[" + builder.toString() + "]";
+	}
+
+	/**
+	 * Returns an iterator belonging to BTreeSet.
+	 */
+	public Iterator<T> iterator(){
+		return new BTreeSetIterator();
+	} // iterator
+
+	@SuppressWarnings("unchecked")
+	private T key(Page page, int index){
+		return (T) page.keys[index];
+	}
+
+	/**
+	 * Binary search for the element among the keys of the page.
+	 *
+	 * @return
+	 * the index of the element if it's found, otherwise (-(insertion point) - 1).
+	 */
+	private int search(Page page, T element){
+		int low = 0;
+		int high = page.count - 1;
+
+		while (low <= high){
+			int mid = (low + high) >>> 1;
+			int cmp = comparator.compare(key(page, mid), element);
+			if (cmp < 0){
+				low = mid + 1;
+			} else if (cmp > 0){
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	} // search
+
+	/**
+	 * Returns the index of the child of the inner page whose subtree may
+	 * contain the element. Keys equal to a separator are found to its right.
+	 */
+	private int childIndex(Inner inner, T element){
+		int pos = search(inner, element);
+		return pos >= 0 ? pos + 1 : -(pos + 1);
+	}
+
+	/**
+	 * Walks down the tree to the leaf that contains, or would contain, the
+	 * element.
+	 */
+	private Leaf findLeaf(T element){
+		Page page = root;
+		while (page instanceof Inner){
+			Inner inner = (Inner) page;
+			page = inner.children[childIndex(inner, element)];
+		}
+		return (Leaf) page;
+	}
+
+	/**
+	 * Inserts the element in the subtree rooted in the page. A page that gets
+	 * too many keys is split in two, in which case the new right half and the
+	 * key separating the halves are returned to the parent. The recursion is
+	 * only as deep as the tree, which has few levels.
+	 *
+	 * @return
+	 * the split of the page, or null if the page wasn't split.
+	 */
+	private Split insert(Page page, T element){
+		if (page instanceof Leaf){
+			Leaf leaf = (Leaf) page;
+			int pos = search(leaf, element);
+			if (pos >= 0){
+				return null;
+			}
+			pos = -(pos + 1);
+
+			System.arraycopy(leaf.keys, pos, leaf.keys, pos + 1, leaf.count - pos);
+			leaf.keys[pos] = element;
+			++leaf.count;
+
+			++size;
+			++modCount;
+
+			return leaf.count > maxKeys ? splitLeaf(leaf) : null;
+		}
+
+		Inner inner = (Inner) page;
+		int index = childIndex(inner, element);
+		Split split = insert(inner.children[index], element);
+		if (split == null){
+			return null;
+		}
+
+		System.arraycopy(inner.keys, index, inner.keys, index + 1, inner.count - index);
+		System.arraycopy(inner.children, index + 1, inner.children, index + 2, inner.count - index);
+		inner.keys[index] = split.key;
+		inner.children[index + 1] = split.right;
+		++inner.count;
+
+		return inner.count > maxKeys ? splitInner(inner) : null;
+	} // insert
+
+	private Split splitLeaf(Leaf leaf){
+		int half = leaf.count / 2;
+		Leaf right = new Leaf(maxKeys);
+
+		right.count = leaf.count - half;
+		System.arraycopy(leaf.keys, half, right.keys, 0, right.count);
+		clear(leaf.keys, half, leaf.count);
+		leaf.count = half;
+
+		right.next = leaf.next;
+		leaf.next = right;
+
+		return new Split(right.keys[0], right);
+	}
+
+	private Split splitInner(Inner inner){
+		int mid = inner.count / 2;
+		Inner right = new Inner(maxKeys);
+
+		right.count = inner.count - mid - 1;
+		System.arraycopy(inner.keys, mid + 1, right.keys, 0, right.count);
+		System.arraycopy(inner.children, mid + 1, right.children, 0, right.count + 1);
+
+		Object separator = inner.keys[mid];
+		clear(inner.keys, mid, inner.count);
+		clear(inner.children, mid + 1, inner.count + 1);
+		inner.count = mid;
+
+		return new Split(separator, right);
+	}
+
+	/**
+	 * Deletes the element from the subtree rooted in the page. A child that
+	 * is left with too few keys borrows keys from or is merged with a sibling.
+	 *
+	 * @return
+	 * true if the element was removed, otherwise false.
+	 */
+	private boolean delete(Page page, T element){
+		if (page instanceof Leaf){
+			Leaf leaf = (Leaf) page;
+			int pos = search(leaf, element);
+			if (pos < 0){
+				return false;
+			}
+
+			System.arraycopy(leaf.keys, pos + 1, leaf.keys, pos, leaf.count - pos - 1);
+			leaf.keys[--leaf.count] = null;
+
+			--size;
+			++modCount;
+			return true;
+		}
+
+		Inner inner = (Inner) page;
+		int index = childIndex(inner, element);
+		if (!delete(inner.children[index], element)){
+			return false;
+		}
+
+		if (inner.children[index].count < minKeys){
+			fixUnderflow(inner, index);
+		}
+		return true;
+	} // delete
+
+	/**
+	 * Refills the child at the supplied index, which has too few keys. Keys
+	 * are borrowed from a sibling that can spare one, otherwise the child is
+	 * merged with a sibling.
+	 */
+	private void fixUnderflow(Inner parent, int index){
+		Page child = parent.children[index];
+		Page left = index > 0 ? parent.children[index - 1] : null;
+		Page right = index < parent.count ? parent.children[index + 1] : null;
+
+		if (left != null && left.count > minKeys){
+			if (child instanceof Leaf){
+				borrowFromLeftLeaf(parent, index, (Leaf) child, (Leaf) left);
+			} else {
+				borrowFromLeftInner(parent, index, (Inner) child, (Inner) left);
+			}
+
+		} else if (right != null && right.count > minKeys){
+			if (child instanceof Leaf){
+				borrowFromRightLeaf(parent, index, (Leaf) child, (Leaf) right);
+			} else {
+				borrowFromRightInner(parent, index, (Inner) child, (Inner) right);
+			}
+
+		} else if (left != null){
+			merge(parent, index - 1, left, child);
+
+		} else {
+			merge(parent, index, child, right);
+		}
+	} // fixUnderflow
+
+	private void borrowFromLeftLeaf(Inner parent, int index, Leaf child, Leaf left){
+		System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+		child.keys[0] = left.keys[left.count - 1];
+		++child.count;
+		left.keys[--left.count] = null;
+
+		parent.keys[index - 1] = child.keys[0];
+	}
+
+	private void borrowFromRightLeaf(Inner parent, int index, Leaf child, Leaf right){
+		child.keys[child.count++] = right.keys[0];
+		System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+		right.keys[--right.count] = null;
+
+		parent.keys[index] = right.keys[0];
+	}
+
+	private void borrowFromLeftInner(Inner parent, int index, Inner child, Inner left){
+		System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+		System.arraycopy(child.children, 0, child.children, 1, child.count + 1);
+		child.keys[0] = parent.keys[index - 1];
+		child.children[0] = left.children[left.count];
+		++child.count;
+
+		parent.keys[index - 1] = left.keys[left.count - 1];
+		left.children[left.count] = null;
+		left.keys[--left.count] = null;
+	}
+
+	private void borrowFromRightInner(Inner parent, int index, Inner child, Inner right){
+		child.keys[child.count] = parent.keys[index];
+		child.children[child.count + 1] = right.children[0];
+		++child.count;
+
+		parent.keys[index] = right.keys[0];
+		System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+		System.arraycopy(right.children, 1, right.children, 0, right.count);
+		right.children[right.count] = null;
+		right.keys[--right.count] = null;
+	}
+
+	/**
+	 * Moves all keys of the right page into the left page and removes the
+	 * right page and the key separating them from the parent.
+	 *
+	 * @param parent
+	 * - the parent of the two pages.
+	 * @param separator
+	 * - the index in the parent of the key separating the two pages.
+	 */
+	private void merge(Inner parent, int separator, Page left, Page right){
+		if (left instanceof Leaf){
+			Leaf leftLeaf = (Leaf) left;
+			Leaf rightLeaf = (Leaf) right;
+
+			System.arraycopy(rightLeaf.keys, 0, leftLeaf.keys, leftLeaf.count, rightLeaf.count);
+			leftLeaf.count += rightLeaf.count;
+
+			leftLeaf.next = rightLeaf.next;
+		} else {
+			Inner leftInner = (Inner) left;
+			Inner rightInner = (Inner) right;
+
+			leftInner.keys[leftInner.count] = parent.keys[separator];
+			System.arraycopy(rightInner.keys, 0, leftInner.keys, leftInner.count + 1, rightInner.count);
+			System.arraycopy(rightInner.children, 0, leftInner.children, leftInner.count + 1, rightInner.count + 1);
+			leftInner.count += rightInner.count + 1;
+		}
+
+		System.arraycopy(parent.keys, separator + 1, parent.keys, separator, parent.count - separator - 1);
+		System.arraycopy(parent.children, separator + 2, parent.children, separator + 1, parent.count - separator - 1);
+		--parent.count;
+		parent.keys[parent.count] = null;
+		parent.children[parent.count + 1] = null;
+	} // merge
+
+	private static void clear(Object[] array, int from, int to){
+		for (int i = from; i < to; ++i){
+			array[i] = null;
+		}
+	}
+
+
+	/**
+	 * A node in the B+-tree. Holds count keys in order. The arrays have room
+	 * for one extra key, so that a node can overflow before it's split.
+	 */
+	private static abstract class Page {
+		Object[] keys;
+		int count;
+	} // Page
+
+	/**
+	 * A leaf holds the elements of the set and is linked to the next leaf.
+	 */
+	private static class Leaf extends Page {
+		Leaf next;
+
+		Leaf(int capacity){
+			keys = new Object[capacity + 1];
+		}
+	} // Leaf
+
+	/**
+	 * An inner page holds count separating keys and count + 1 children. Every
+	 * key in children[i] is smaller than keys[i], and every key in
+	 * children[i + 1] is larger than or equal to keys[i].
+	 */
+	private static class Inner extends Page {
+		Page[] children;
+
+		Inner(int capacity){
+			keys = new Object[capacity + 1];
+			children = new Page[capacity + 2];
+		}
+	} // Inner
+
+	/**
+	 * The result of splitting a page: the new right half, and the key that
+	 * separates it from the left half in the parent.
+	 */
+	private static class Split {
+		final Object key;
+		final Page right;
+
+		Split(Object key, Page right){
+			this.key = key;
+			this.right = right;
+		}
+	} // Split
+
+
+	/**
+	 * Used to iterate over the elements in a BTreeSet object by walking the
+	 * linked leaves.
+	 */
+	private class BTreeSetIterator implements Iterator<T>{
+
+		private Leaf currentLeaf;
+		private int index;
+		private T lastReturned;
+		private int expectedCount;
+		private boolean removalValid;
+
+		public BTreeSetIterator(){
+			currentLeaf = firstLeaf;
+			index = 0;
+			expectedCount = modCount;
+			removalValid = false;
+		}
+
+		/**
+		 * Only the root may be an empty leaf, so a following leaf always holds
+		 * another element.
+		 */
+		public boolean hasNext(){
+			return index < currentLeaf.count || currentLeaf.next != null;
+		}
+
+		/**
+		 * Returns the next element in the set.
+		 *
+		 * @throws
+		 * NoSuchElementException if there are no more elements in the set.
+		 * @throws
+		 * ConcurrentModificationException if the set has been modified by someone
+		 * else than the iterator.
+		 */
+		public T next(){
+			if(!hasNext())
+				throw new NoSuchElementException();
+			if(expectedCount != modCount)
+				throw new ConcurrentModificationException();
+
+			if (index == currentLeaf.count){
+				currentLeaf = currentLeaf.next;
+				index = 0;
+			}
+			removalValid = true;
+			lastReturned = key(currentLeaf, index++);
+			return lastReturned;
+		}
+
+		/**
+		 * Removes the element last returned by next. Since the removal may
+		 * move keys between leaves, the position of the next element is
+		 * searched for again.
+		 *
+		 * @throws
+		 * IllegalStateException if a call to next() hasn't been done.
+		 * @throws
+		 * ConcurrentModificationException if the set has been modified by someone
+		 * else than the iterator.
+		 */
+		public void remove(){
+			if(!removalValid)
+				throw new IllegalStateException();
+			if(expectedCount != modCount)
+				throw new ConcurrentModificationException();
+			removalValid = false;
+
+			BTreeSet.this.remove(lastReturned);
+			expectedCount = modCount;
+
+			currentLeaf = findLeaf(lastReturned);
+			index = -(search(currentLeaf, lastReturned) + 1);
+		}
+	} // BTreeSetIterator
+
+} // BTreeSet
@@ -0,0 +1,34 @@
+package treeset;
+
+/**
+ * The strategies MyTreeSet can use to keep the shape of its tree in check.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public enum Balancing {
+
+	/**
+	 * The tree is a plain binary search tree. Elements added in sorted order
+	 * will make the tree degenerate into a list.
+	 */
+	NONE,
+
+	/**
+	 * The tree is kept as an AVL tree. The heights of the two subtrees of any
+	 * node differ by at most one, which guarantees O(log n) height.
+	 */
+	AVL,
+
+	/**
+	 * The tree is a splay tree. Every node that contains, add, remove or a 
+	 * floor, ceiling, lower or higher search reaches is rotated up to the 
+	 * root, so elements that are accessed often stay close to it. Any sequence
+	 * of operations costs O(log n) amortized per operation, while a single 
+	 * operation may take O(n). Since lookups change the shape of the tree, 
+	 * even readers have to be synchronized with each other. Only MyTreeSet 
+	 * supports this strategy.
+	 */
+	SPLAY
+
+} // Balancing
@@ -0,0 +1,474 @@
+package treeset;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+
+/**
+ * Thread-safe set built on a MyTreeSet, for workloads with many readers and
+ * few writers. Writers take an exclusive lock. Readers don't lock at all at
+ * first: they walk the shared tree optimistically and then validate the 
+ * stamp of the lock to check that no writer was active in the meantime. 
+ * Only a reader that overlapped a write retries, once, under a shared read 
+ * lock. Optimistic readers take no lock and write no shared state, so they
+ * don't contend with each other and read throughput grows with the number 
+ * of threads.
+ * <p>
+ * The optimistic searches walk the nodes themselves, since a tree that is
+ * being modified may briefly look inconsistent. The walk gives up after as
+ * many steps as there are elements, so it always terminates, and anything it
+ * throws while reading such a tree is discarded before the retry.
+ * <p>
+ * Iterators are weakly consistent. They never throw
+ * ConcurrentModificationException, return every element at most once and in
+ * order, and reflect some of the modifications made after they were created.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class ConcurrentMyTreeSet<T extends Comparable<T> > implements Iterable<T>{
+
+	private static final int ITERATOR_BATCH = 64;
+
+	private final MyTreeSet<T> set;
+	private final StampedLock lock;
+
+	/**
+	 * Creates an empty ConcurrentMyTreeSet object. Any comparisons between
+	 * elements will be done with compareTo. The tree is AVL balanced.
+	 */
+	public ConcurrentMyTreeSet(){
+		this(Balancing.AVL);
+	}
+
+	/**
+	 * Creates an empty ConcurrentMyTreeSet object that uses the supplied
+	 * balancing strategy.
+	 *
+	 * @param balancing
+	 * - the balancing strategy of the tree.
+	 *
+	 * @throws
+	 * NullPointerException if balancing is null.
+	 * @throws
+	 * IllegalArgumentException if balancing is SPLAY, since a splay tree 
+	 * changes shape on every lookup and can't be read under a shared lock.
+	 */
+	public ConcurrentMyTreeSet(Balancing balancing){
+		checkBalancing(balancing);
+		set = new MyTreeSet<T>(balancing);
+		lock = new StampedLock();
+	}
+
+	/**
+	 * Creates an empty ConcurrentMyTreeSet object and installs the supplied
+	 * comparator. The tree is AVL balanced.
+	 *
+	 * @param comparator
+	 * - the comparator that is to be used to compare elements in the set.
+	 *
+	 * @throws
+	 * NullPointerException if comparator is null.
+	 */
+	public ConcurrentMyTreeSet(Comparator<T> comparator){
+		this(comparator, Balancing.AVL);
+	}
+
+	/**
+	 * Creates an empty ConcurrentMyTreeSet object that uses the supplied
+	 * comparator and balancing strategy.
+	 *
+	 * @throws
+	 * NullPointerException if comparator or balancing is null.
+	 * @throws
+	 * IllegalArgumentException if balancing is SPLAY.
+	 */
+	public ConcurrentMyTreeSet(Comparator<T> comparator, Balancing balancing){
+		checkBalancing(balancing);
+		set = new MyTreeSet<T>(comparator, balancing);
+		lock = new StampedLock();
+	}
+
+	private static void checkBalancing(Balancing balancing){
+		if (balancing == Balancing.SPLAY){
+			throw new IllegalArgumentException("A splay tree can't be read concurrently.");
+		}
+	}
+
+	/**
+	 * Adds one element to the set. Does nothing if the set already contains
+	 * the element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void add(T element){
+		long stamp = lock.writeLock();
+		try {
+			set.add(element);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	} // add
+
+	/**
+	 * Adds all the elements to the set under a single write lock.
+	 *
+	 * @throws
+	 * NullPointerException if elements or any of the elements is null.
+	 */
+	public void addAll(Iterable<? extends T> elements){
+		long stamp = lock.writeLock();
+		try {
+			set.addAll(elements);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	} // addAll
+
+	/**
+	 * Removes the specified element from the set. Does nothing if the set
+	 * doesn't contain the element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void remove(T element){
+		long stamp = lock.writeLock();
+		try {
+			set.remove(element);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	} // remove
+
+	/**
+	 * Checks if the element is present in the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public boolean contains(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0){
+			try {
+				Node<T> found = ceilingNode(element, true);
+				if (found != null){
+					boolean result = found != set.getTail() && set.getComparator().compare(found.getValue(), element) == 0;
+					if (lock.validate(stamp)){
+						return result;
+					}
+				}
+			} catch (RuntimeException e){
+				// The tree was read while it was being modified.
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return set.contains(element);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	} // contains
+
+	/**
+	 * Returns the smallest element in the set.
+	 *
+	 * @throws
+	 * NoSuchElementException if the set is empty.
+	 */
+	public T first(){
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0){
+			T result = set.getHead().getNextLargest().getValue();
+			if (lock.validate(stamp)){
+				if (result == null){
+					throw new NoSuchElementException();
+				}
+				return result;
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return set.first();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	} // first
+
+	/**
+	 * Returns the largest element in the set.
+	 *
+	 * @throws
+	 * NoSuchElementException if the set is empty.
+	 */
+	public T last(){
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0){
+			T result = set.getTail().getNextSmallest().getValue();
+			if (lock.validate(stamp)){
+				if (result == null){
+					throw new NoSuchElementException();
+				}
+				return result;
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return set.last();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	} // last
+
+	/**
+	 * Returns the largest element in the set that is smaller than or equal to
+	 * the supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T floor(T element){
+		return navigate(element, false, true);
+	} // floor
+
+	/**
+	 * Returns the smallest element in the set that is larger than or equal to
+	 * the supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T ceiling(T element){
+		return navigate(element, true, false);
+	} // ceiling
+
+	/**
+	 * Returns the largest element in the set that is strictly smaller than the
+	 * supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T lower(T element){
+		return navigate(element, true, true);
+	} // lower
+
+	/**
+	 * Returns the smallest element in the set that is strictly larger than the
+	 * supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T higher(T element){
+		return navigate(element, false, false);
+	} // higher
+
+	/**
+	 * Returns the size of the set, i.e. the number of elements in the set.
+	 */
+	public int size(){
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0){
+			int size = set.size();
+			if (lock.validate(stamp)){
+				return size;
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return set.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	} // size
+
+	/**
+	 * Returns a string representation of the set.
+	 */
+	public String toString(){
+		long stamp = lock.readLock();
+		try {
+			return set.toString();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over the elements in order.
+	 */
+	public Iterator<T> iterator(){
+		return new ConcurrentIterator();
+	} // iterator
+
+	/**
+	 * Answers the navigation queries. The node found by ceilingNode, or its
+	 * neighbour through nextSmallest, holds the answer.
+	 *
+	 * @param inclusive
+	 * - passed on to ceilingNode.
+	 * @param smaller
+	 * - true to return the neighbour before the node found.
+	 * @return
+	 * the element found, or null if there is none.
+	 */
+	private T navigate(T element, boolean inclusive, boolean smaller){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0){
+			try {
+				Node<T> found = ceilingNode(element, inclusive);
+				if (found != null){
+					T result = smaller ? found.getNextSmallest().getValue() : found.getValue();
+					if (lock.validate(stamp)){
+						return result;
+					}
+				}
+			} catch (RuntimeException e){
+				// The tree was read while it was being modified.
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			if (inclusive){
+				return smaller ? set.lower(element) : set.ceiling(element);
+			}
+			return smaller ? set.floor(element) : set.higher(element);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	} // navigate
+
+	/**
+	 * Searches the tree like MyTreeSet.ceilingNode, but without any lock.
+	 * The search gives up if it visits more nodes than there are elements,
+	 * which can only happen while a writer is restructuring the tree.
+	 *
+	 * @return
+	 * the node found, the tail if every element is smaller, or null if the
+	 * search gave up.
+	 */
+	private Node<T> ceilingNode(T element, boolean inclusive){
+		Comparator<T> comparator = set.getComparator();
+		Node<T> currNode = set.getRoot();
+		Node<T> lastNode = null;
+		int stepsLeft = set.size() + 1;
+		int cmp = 0;
+
+		while (currNode != null){
+			if (--stepsLeft < 0){
+				return null;
+			}
+			lastNode = currNode;
+			cmp = comparator.compare(currNode.getValue(), element);
+			if (cmp > 0){
+				currNode = currNode.getLeftChild();
+			} else if (cmp < 0){
+				currNode = currNode.getRightChild();
+			} else {
+				return inclusive ? currNode : currNode.getNextLargest();
+			}
+		}
+
+		if (lastNode == null){
+			return set.getTail();
+		}
+		return cmp > 0 ? lastNode : lastNode.getNextLargest();
+	} // ceilingNode
+
+
+	/**
+	 * Weakly consistent iterator. It copies the elements in batches under the
+	 * read lock, and continues each batch after the last element it returned,
+	 * so modifications of the set never invalidate it.
+	 */
+	private class ConcurrentIterator implements Iterator<T>{
+
+		private final ArrayList<T> batch;
+		private int position;
+		private T lastReturned;
+		private boolean exhausted;
+		private boolean removalValid;
+
+		public ConcurrentIterator(){
+			batch = new ArrayList<T>(ITERATOR_BATCH);
+			position = 0;
+			exhausted = false;
+			removalValid = false;
+		}
+
+		public boolean hasNext(){
+			if (position == batch.size() && !exhausted){
+				fetch();
+			}
+			return position < batch.size();
+		}
+
+		/**
+		 * Returns the next element in the set.
+		 *
+		 * @throws
+		 * NoSuchElementException if there are no more elements in the set.
+		 */
+		public T next(){
+			if (!hasNext())
+				throw new NoSuchElementException();
+			removalValid = true;
+			lastReturned = batch.get(position++);
+			return lastReturned;
+		}
+
+		/**
+		 * Removes the element last returned by next from the set.
+		 *
+		 * @throws
+		 * IllegalStateException if a call to next() hasn't been done.
+		 */
+		public void remove(){
+			if (!removalValid)
+				throw new IllegalStateException();
+			removalValid = false;
+			ConcurrentMyTreeSet.this.remove(lastReturned);
+		}
+
+		/**
+		 * Copies the next batch of elements, the ones following lastReturned
+		 * in the set as it is now.
+		 */
+		private void fetch(){
+			batch.clear();
+			position = 0;
+
+			long stamp = lock.readLock();
+			try {
+				Node<T> tail = set.getTail();
+				Node<T> currNode = lastReturned == null ? set.getHead().getNextLargest() : ceilingNode(lastReturned, false);
+				while (currNode != tail && batch.size() < ITERATOR_BATCH){
+					batch.add(currNode.getValue());
+					currNode = currNode.getNextLargest();
+				}
+				exhausted = currNode == tail;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+	} // ConcurrentIterator
+
+} // ConcurrentMyTreeSet
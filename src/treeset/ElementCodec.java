@@ -0,0 +1,46 @@
+package treeset;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+
+/**
+ * Converts the elements of a set to and from bytes when the set is written by
+ * MyTreeSetSerializer. The elements are written in order, and each one is
+ * encoded relative to the element before it, so a codec can store just the
+ * difference. {@link ElementCodecs} has codecs for the common element types.
+ *
+ * @param <T>
+ * - the datatype of the elements
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public interface ElementCodec<T> {
+
+	/**
+	 * Writes one element.
+	 *
+	 * @param previous
+	 * - the element written before this one, or null for the first element.
+	 * @param element
+	 * - the element to write.
+	 * @param out
+	 * - the output to write to.
+	 */
+	void encode(T previous, T element, DataOutput out) throws IOException;
+
+	/**
+	 * Reads one element.
+	 *
+	 * @param previous
+	 * - the element read before this one, or null for the first element.
+	 * @param in
+	 * - the input to read from.
+	 * @return
+	 * the element read.
+	 */
+	T decode(T previous, DataInput in) throws IOException;
+
+}
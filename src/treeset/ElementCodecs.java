@@ -0,0 +1,155 @@
+package treeset;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Codecs for the common element types, and the variable-length integer
+ * encoding they are built on. Numbers are stored as the difference to the
+ * previous element. The difference is zigzag encoded, so that small negative
+ * differences from a reversing comparator stay small too, and then written in
+ * groups of seven bits, as few as needed. A dense set of numbers costs about
+ * one byte per element. Strings are stored as the length of the prefix they
+ * share with the previous string followed by the rest of the string.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public final class ElementCodecs {
+
+	private static final int MAX_CHUNK = 1 << 16;
+
+	/**
+	 * Delta and varint encoding of Integer elements.
+	 */
+	public static final ElementCodec<Integer> INTEGER = new ElementCodec<Integer>(){
+
+		public void encode(Integer previous, Integer element, DataOutput out) throws IOException{
+			int base = previous == null ? 0 : previous;
+			writeVarLong(out, zigzag(element - base));
+		}
+
+		public Integer decode(Integer previous, DataInput in) throws IOException{
+			int base = previous == null ? 0 : previous;
+			return base + (int) unzigzag(readVarLong(in));
+		}
+	};
+
+	/**
+	 * Delta and varint encoding of Long elements.
+	 */
+	public static final ElementCodec<Long> LONG = new ElementCodec<Long>(){
+
+		public void encode(Long previous, Long element, DataOutput out) throws IOException{
+			long base = previous == null ? 0 : previous;
+			writeVarLong(out, zigzag(element - base));
+		}
+
+		public Long decode(Long previous, DataInput in) throws IOException{
+			long base = previous == null ? 0 : previous;
+			return base + unzigzag(readVarLong(in));
+		}
+	};
+
+	/**
+	 * Prefix encoding of String elements. The rest of each string is stored
+	 * as UTF-8.
+	 */
+	public static final ElementCodec<String> STRING = new ElementCodec<String>(){
+
+		public void encode(String previous, String element, DataOutput out) throws IOException{
+			int shared = 0;
+			if (previous != null){
+				int max = Math.min(previous.length(), element.length());
+				while (shared < max && previous.charAt(shared) == element.charAt(shared)){
+					++shared;
+				}
+				// Don't split a surrogate pair between the prefix and the rest.
+				if (shared > 0 && Character.isHighSurrogate(element.charAt(shared - 1))){
+					--shared;
+				}
+			}
+
+			byte[] rest = element.substring(shared).getBytes(StandardCharsets.UTF_8);
+			writeVarLong(out, shared);
+			writeVarLong(out, rest.length);
+			out.write(rest);
+		}
+
+		public String decode(String previous, DataInput in) throws IOException{
+			long shared = readVarLong(in);
+			long length = readVarLong(in);
+			int maxShared = previous == null ? 0 : previous.length();
+			if (shared < 0 || shared > maxShared || length < 0 || length > Integer.MAX_VALUE){
+				throw new IOException("Corrupt element.");
+			}
+
+			// The length isn't trusted with one large array, so a truncated
+			// stream fails once its bytes run out.
+			byte[] rest = new byte[(int) Math.min(length, MAX_CHUNK)];
+			int read = 0;
+			while (read < length){
+				if (read == rest.length){
+					rest = Arrays.copyOf(rest, (int) Math.min(length, 2L * rest.length));
+				}
+				int chunk = (int) Math.min(rest.length - read, MAX_CHUNK);
+				in.readFully(rest, read, chunk);
+				read += chunk;
+			}
+
+			String prefix = shared == 0 ? "" : previous.substring(0, (int) shared);
+			return prefix + new String(rest, StandardCharsets.UTF_8);
+		}
+	};
+
+	private ElementCodecs(){
+	}
+
+	/**
+	 * Writes the value seven bits at a time, least significant first. The top
+	 * bit of every byte tells if more bytes follow. The value is treated as
+	 * unsigned, so small values take one byte.
+	 */
+	public static void writeVarLong(DataOutput out, long value) throws IOException{
+		while ((value & ~0x7FL) != 0){
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	/**
+	 * Reads a value written by writeVarLong.
+	 *
+	 * @throws
+	 * IOException if the value is longer than 64 bits.
+	 */
+	public static long readVarLong(DataInput in) throws IOException{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7){
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0){
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable-length number.");
+	}
+
+	/**
+	 * Maps signed values to unsigned ones so that values close to zero, of
+	 * either sign, become small: 0, -1, 1, -2, 2 become 0, 1, 2, 3, 4.
+	 */
+	static long zigzag(long value){
+		return (value << 1) ^ (value >> 63);
+	}
+
+	static long unzigzag(long value){
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
@@ -0,0 +1,37 @@
+package treeset;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Converts elements to and from a fixed number of bytes, for the files read
+ * by MappedTreeSet. Since every element takes the same space, the elements
+ * can be searched in place without decoding the whole file.
+ * {@link FixedWidthCodecs} has codecs for the common element types.
+ *
+ * @param <T>
+ * - the datatype of the elements
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public interface FixedWidthCodec<T> {
+
+	/**
+	 * Returns the number of bytes every element takes.
+	 */
+	int width();
+
+	/**
+	 * Writes the element at the current position of the buffer and advances
+	 * the position by width bytes.
+	 */
+	void put(ByteBuffer buffer, T element);
+
+	/**
+	 * Reads the element that starts at the supplied index of the buffer,
+	 * without changing the position of the buffer.
+	 */
+	T get(ByteBuffer buffer, int index);
+
+}
@@ -0,0 +1,54 @@
+package treeset;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Codecs for elements that always take the same number of bytes. The values
+ * are stored big-endian.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public final class FixedWidthCodecs {
+
+	/**
+	 * Integer elements in four bytes.
+	 */
+	public static final FixedWidthCodec<Integer> INTEGER = new FixedWidthCodec<Integer>(){
+
+		public int width(){
+			return 4;
+		}
+
+		public void put(ByteBuffer buffer, Integer element){
+			buffer.putInt(element);
+		}
+
+		public Integer get(ByteBuffer buffer, int index){
+			return buffer.getInt(index);
+		}
+	};
+
+	/**
+	 * Long elements in eight bytes.
+	 */
+	public static final FixedWidthCodec<Long> LONG = new FixedWidthCodec<Long>(){
+
+		public int width(){
+			return 8;
+		}
+
+		public void put(ByteBuffer buffer, Long element){
+			buffer.putLong(element);
+		}
+
+		public Long get(ByteBuffer buffer, int index){
+			return buffer.getLong(index);
+		}
+	};
+
+	private FixedWidthCodecs(){
+	}
+
+}
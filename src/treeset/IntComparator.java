@@ -0,0 +1,25 @@
+package treeset;
+
+/**
+ * Comparison function for int values. Used by IntTreeSet so that values can be
+ * compared without being boxed.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public interface IntComparator {
+
+	/**
+	 * Compares the two values.
+	 *
+	 * @param o1
+	 * - the first value to compare.
+	 * @param o2
+	 * - the second value to compare.
+	 * @return
+	 * a negative integer, zero, or a positive integer as the first value is
+	 * less than, equal to, or greater than the second.
+	 */
+	int compare(int o1, int o2);
+
+} // IntComparator
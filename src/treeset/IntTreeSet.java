@@ -0,0 +1,486 @@
+package treeset;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+
+/**
+ * Set of int values kept in order. Either by the natural order of the values
+ * or by the supplied IntComparator. The set does not contain any duplicates.
+ * <p>
+ * The set is an AVL tree whose nodes are stored in parallel arrays and linked
+ * by their index, so the values are never boxed. A node costs one int for the
+ * value, two ints for the children and one byte for the height. There are no
+ * parent references or threaded list; the tree is walked with a small stack
+ * instead, which is bounded by the logarithmic height of the tree.
+ * <p>
+ * IntTreeSet and LongTreeSet are deliberate primitive specializations of the
+ * same code and differ only in the type of the values. A fix to one belongs
+ * in the other as well.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class IntTreeSet {
+
+	private static final int NIL = -1;
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int MAX_HEIGHT = 64;
+
+	private int[] values;
+	private int[] leftChildren;
+	private int[] rightChildren;
+	private byte[] heights;
+
+	private int root;
+	private int freeNode;
+	private int usedNodes;
+
+	private int size;
+	private IntComparator comparator;
+	private int modCount;
+
+	private final int[] path;
+
+	/**
+	 * Creates an empty IntTreeSet object. The values are kept in their
+	 * natural order.
+	 */
+	public IntTreeSet(){
+		values = new int[INITIAL_CAPACITY];
+		leftChildren = new int[INITIAL_CAPACITY];
+		rightChildren = new int[INITIAL_CAPACITY];
+		heights = new byte[INITIAL_CAPACITY];
+		path = new int[MAX_HEIGHT];
+
+		root = NIL;
+		freeNode = NIL;
+		usedNodes = 0;
+
+		comparator = new NaturalOrder();
+		size = 0;
+		modCount = 0;
+	}
+
+	/**
+	 * Creates an empty IntTreeSet object and installs the supplied comparator.
+	 * Any comparisons between values will be done with the comparator.
+	 *
+	 * @param comparator
+	 * - the comparator that is to be used to compare values in the set.
+	 *
+	 * @throws
+	 * NullPointerException if comparator is null.
+	 */
+	public IntTreeSet(IntComparator comparator){
+		this();
+
+		if (comparator == null){
+			throw new NullPointerException("Comparator can't be null.");
+		}
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Adds one value to the set. Does nothing if the set already contains
+	 * the value.
+	 *
+	 * @param value
+	 * - the value to add to the set.
+	 */
+	public void add(int value){
+		if (root == NIL){
+			root = newNode(value);
+			++size;
+			++modCount;
+			return;
+		}
+
+		int depth = 0;
+		int currNode = root;
+		while (true){
+			path[depth++] = currNode;
+
+			int cmp = comparator.compare(values[currNode], value);
+			if (cmp > 0){
+				if (leftChildren[currNode] == NIL){
+					int leftChild = newNode(value);
+					leftChildren[currNode] = leftChild;
+					break;
+				}
+				currNode = leftChildren[currNode];
+
+			} else if (cmp < 0){
+				if (rightChildren[currNode] == NIL){
+					int rightChild = newNode(value);
+					rightChildren[currNode] = rightChild;
+					break;
+				}
+				currNode = rightChildren[currNode];
+
+			} else {
+				return;
+			}
+		}
+		++size;
+		++modCount;
+
+		rebalance(depth);
+	} // add
+
+	/**
+	 * Checks if the value is present in the set.
+	 *
+	 * @param value
+	 * - the value to search for.
+	 * @return
+	 * true if the value is present, otherwise false.
+	 */
+	public boolean contains(int value){
+		int currNode = root;
+
+		while (currNode != NIL){
+			int cmp = comparator.compare(values[currNode], value);
+			if (cmp > 0){
+				currNode = leftChildren[currNode];
+			} else if (cmp < 0){
+				currNode = rightChildren[currNode];
+			} else {
+				return true;
+			}
+		}
+		return false;
+	} // contains
+
+	/**
+	 * Removes the specified value from the set. Does nothing if the set
+	 * doesn't contain the value.
+	 *
+	 * @param value
+	 * - the value to remove from the set.
+	 */
+	public void remove(int value){
+		int depth = 0;
+		int currNode = root;
+
+		while (currNode != NIL){
+			int cmp = comparator.compare(values[currNode], value);
+			if (cmp == 0){
+				break;
+			}
+			path[depth++] = currNode;
+			currNode = cmp > 0 ? leftChildren[currNode] : rightChildren[currNode];
+		}
+		if (currNode == NIL){
+			return;
+		}
+
+		// A node with two children takes the value of its next largest
+		// neighbour, and the neighbour's node is unlinked instead.
+		int toUnlink = currNode;
+		if (leftChildren[currNode] != NIL && rightChildren[currNode] != NIL){
+			path[depth++] = currNode;
+			toUnlink = rightChildren[currNode];
+			while (leftChildren[toUnlink] != NIL){
+				path[depth++] = toUnlink;
+				toUnlink = leftChildren[toUnlink];
+			}
+			values[currNode] = values[toUnlink];
+		}
+
+		int child = leftChildren[toUnlink] != NIL ? leftChildren[toUnlink] : rightChildren[toUnlink];
+		replaceChild(depth, toUnlink, child);
+		releaseNode(toUnlink);
+
+		--size;
+		++modCount;
+
+		rebalance(depth);
+	} // remove
+
+	/**
+	 * Returns the size of the set, i.e. the number of values in the set.
+	 * @return
+	 * the size of the set.
+	 */
+	public int size(){
+		return size;
+	} // size
+
+	/**
+	 * Returns a string representation of the set.
+	 * @return
+	 * - a string representing the set
+	 */
+	public String toString(){
+		StringBuilder builder = new StringBuilder("[");
+
+		PrimitiveIterator.OfInt iter = iterator();
+		while (iter.hasNext()){
+			if (builder.length() != 1){
+				builder.append( ", " );
+			}
+			builder.append( iter.nextInt() );
+		}
+
+		return builder.append("]").toString();
+	}
+
+	/**
+	 * Returns an iterator that returns the values in order without boxing them.
+	 */
+	public PrimitiveIterator.OfInt iterator(){
+		return new IntTreeSetIterator();
+	} // iterator
+
+	/**
+	 * Takes a free node, or a new one at the end of the arrays, and stores the
+	 * supplied value in it. The arrays are grown if they are full.
+	 *
+	 * @param value
+	 * - the value to store in the node.
+	 * @return
+	 * the index of the node.
+	 */
+	private int newNode(int value){
+		int node;
+		if (freeNode != NIL){
+			node = freeNode;
+			freeNode = leftChildren[node];
+		} else {
+			if (usedNodes == values.length){
+				grow();
+			}
+			node = usedNodes++;
+		}
+
+		values[node] = value;
+		leftChildren[node] = NIL;
+		rightChildren[node] = NIL;
+		heights[node] = 1;
+		return node;
+	} // newNode
+
+	/**
+	 * Puts the node on the list of free nodes. The list is linked through the
+	 * left children of the free nodes.
+	 */
+	private void releaseNode(int node){
+		leftChildren[node] = freeNode;
+		freeNode = node;
+	}
+
+	/**
+	 * Doubles the capacity of the arrays.
+	 */
+	private void grow(){
+		int capacity = values.length * 2;
+		values = Arrays.copyOf(values, capacity);
+		leftChildren = Arrays.copyOf(leftChildren, capacity);
+		rightChildren = Arrays.copyOf(rightChildren, capacity);
+		heights = Arrays.copyOf(heights, capacity);
+	}
+
+	/**
+	 * Puts newChild in oldChild's place. The parent of oldChild is the last
+	 * node of the search path, or oldChild is the root if the path is empty.
+	 *
+	 * @param depth
+	 * - the length of the search path down to the parent of oldChild.
+	 * @param oldChild
+	 * - the node to replace.
+	 * @param newChild
+	 * - the node to put in oldChild's place, may be NIL.
+	 */
+	private void replaceChild(int depth, int oldChild, int newChild){
+		if (depth == 0){
+			root = newChild;
+		} else if (leftChildren[path[depth - 1]] == oldChild){
+			leftChildren[path[depth - 1]] = newChild;
+		} else {
+			rightChildren[path[depth - 1]] = newChild;
+		}
+	}
+
+	/**
+	 * Walks the search path back towards the root, updating the heights and
+	 * rotating every node that has become unbalanced. The walk stops as soon
+	 * as a subtree keeps the height it had before.
+	 *
+	 * @param depth
+	 * - the length of the search path.
+	 */
+	private void rebalance(int depth){
+		for (int i = depth - 1; i >= 0; --i){
+			int currNode = path[i];
+			int oldHeight = heights[currNode];
+
+			int newSubroot = balance(currNode);
+			if (newSubroot != currNode){
+				replaceChild(i, currNode, newSubroot);
+			}
+
+			if (heights[newSubroot] == oldHeight){
+				return;
+			}
+		}
+	} // rebalance
+
+	/**
+	 * Updates the height of the node and rotates it if it's unbalanced.
+	 *
+	 * @return
+	 * the root of the subtree after the rotations.
+	 */
+	private int balance(int currNode){
+		int balance = height(leftChildren[currNode]) - height(rightChildren[currNode]);
+
+		if (balance > 1){
+			int leftChild = leftChildren[currNode];
+			if (height(leftChildren[leftChild]) < height(rightChildren[leftChild])){
+				leftChildren[currNode] = rotateLeft(leftChild);
+			}
+			return rotateRight(currNode);
+
+		} else if (balance < -1){
+			int rightChild = rightChildren[currNode];
+			if (height(rightChildren[rightChild]) < height(leftChildren[rightChild])){
+				rightChildren[currNode] = rotateRight(rightChild);
+			}
+			return rotateLeft(currNode);
+		}
+
+		updateHeight(currNode);
+		return currNode;
+	} // balance
+
+	private int rotateLeft(int currNode){
+		int newSubroot = rightChildren[currNode];
+		rightChildren[currNode] = leftChildren[newSubroot];
+		leftChildren[newSubroot] = currNode;
+
+		updateHeight(currNode);
+		updateHeight(newSubroot);
+		return newSubroot;
+	}
+
+	private int rotateRight(int currNode){
+		int newSubroot = leftChildren[currNode];
+		leftChildren[currNode] = rightChildren[newSubroot];
+		rightChildren[newSubroot] = currNode;
+
+		updateHeight(currNode);
+		updateHeight(newSubroot);
+		return newSubroot;
+	}
+
+	private void updateHeight(int currNode){
+		heights[currNode] = (byte) (1 + Math.max(height(leftChildren[currNode]), height(rightChildren[currNode])));
+	}
+
+	private int height(int currNode){
+		return currNode == NIL ? 0 : heights[currNode];
+	}
+
+
+	/**
+	 * IntComparator installed when no comparator is supplied to the set.
+	 */
+	private static class NaturalOrder implements IntComparator{
+
+		public int compare(int o1, int o2){
+			return Integer.compare(o1, o2);
+		}
+	} // NaturalOrder
+
+
+	/**
+	 * Used to iterate over the values in an IntTreeSet object. The iterator
+	 * keeps the path to the next node on a stack.
+	 */
+	private class IntTreeSetIterator implements PrimitiveIterator.OfInt{
+
+		private final int[] stack;
+		private int depth;
+		private int lastValue;
+		private int expectedCount;
+		private boolean removalValid;
+
+		public IntTreeSetIterator(){
+			stack = new int[MAX_HEIGHT];
+			depth = 0;
+			expectedCount = modCount;
+			removalValid = false;
+			pushLeftPath(root);
+		}
+
+		public boolean hasNext(){
+			return depth > 0;
+		}
+
+		/**
+		 * Returns the next value in the set.
+		 *
+		 * @throws
+		 * NoSuchElementException if there are no more values in the set.
+		 * @throws
+		 * ConcurrentModificationException if the set has been modified by someone
+		 * else than the iterator.
+		 */
+		public int nextInt(){
+			if (!hasNext())
+				throw new NoSuchElementException();
+			if (expectedCount != modCount)
+				throw new ConcurrentModificationException();
+
+			int currNode = stack[--depth];
+			pushLeftPath(rightChildren[currNode]);
+
+			removalValid = true;
+			lastValue = values[currNode];
+			return lastValue;
+		}
+
+		/**
+		 * Removes the value last returned by nextInt. The path to the next node
+		 * is searched for again, since the removal may restructure the tree.
+		 *
+		 * @throws
+		 * IllegalStateException if a call to nextInt() hasn't been done.
+		 * @throws
+		 * ConcurrentModificationException if the set has been modified by someone
+		 * else than the iterator.
+		 */
+		public void remove(){
+			if (!removalValid)
+				throw new IllegalStateException();
+			if (expectedCount != modCount)
+				throw new ConcurrentModificationException();
+			removalValid = false;
+
+			IntTreeSet.this.remove(lastValue);
+			expectedCount = modCount;
+
+			depth = 0;
+			int currNode = root;
+			while (currNode != NIL){
+				if (comparator.compare(values[currNode], lastValue) > 0){
+					stack[depth++] = currNode;
+					currNode = leftChildren[currNode];
+				} else {
+					currNode = rightChildren[currNode];
+				}
+			}
+		}
+
+		private void pushLeftPath(int currNode){
+			while (currNode != NIL){
+				stack[depth++] = currNode;
+				currNode = leftChildren[currNode];
+			}
+		}
+	} // IntTreeSetIterator
+
+} // IntTreeSet
@@ -0,0 +1,500 @@
+package treeset;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+
+
+/**
+ * Thread-safe sorted set without locks, for workloads where many threads
+ * write at the same time. Either by the natural order of the elements or by
+ * the supplied comparator. The set does not contain any duplicates or nulls.
+ * <p>
+ * The set is a lock-free skip list. Every node is chained to the next larger
+ * node on the bottom level, like the nextLargest references of MyTreeSet, so
+ * ordered scans just follow the chain. A node is also linked into a random
+ * number of sparser levels above, which make searches logarithmic on average.
+ * <p>
+ * Each link is an AtomicMarkableReference. A node is removed by first marking
+ * its own links, top level first, which makes it logically absent. Searches
+ * that run into a marked node unlink it with compareAndSet. Adding links a new
+ * node with compareAndSet on the bottom level, which makes it present, and
+ * then on the levels above. A failed compareAndSet means another thread
+ * changed the neighbourhood, and the operation searches again.
+ * <p>
+ * Iterators are weakly consistent. They never throw
+ * ConcurrentModificationException and return the elements in order.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class LockFreeSortedSet<T extends Comparable<T> > implements Iterable<T>{
+
+	private static final int MAX_LEVEL = 31;
+
+	private final SkipNode<T> head;
+	private final SkipNode<T> tail;
+	private final AtomicInteger size;
+	private final Comparator<T> comparator;
+
+	/**
+	 * Creates an empty LockFreeSortedSet object. Any comparisons between
+	 * elements will be done with compareTo.
+	 */
+	public LockFreeSortedSet(){
+		this(new NaturalOrder<T>());
+	}
+
+	/**
+	 * Creates an empty LockFreeSortedSet object and installs the supplied
+	 * comparator. Any comparisons between elements will be done with the
+	 * comparator.
+	 *
+	 * @param comparator
+	 * - the comparator that is to be used to compare elements in the set.
+	 *
+	 * @throws
+	 * NullPointerException if comparator is null.
+	 */
+	public LockFreeSortedSet(Comparator<T> comparator){
+		if (comparator == null){
+			throw new NullPointerException("Comparator can't be null.");
+		}
+		this.comparator = comparator;
+
+		tail = new SkipNode<T>(null, MAX_LEVEL, null);
+		head = new SkipNode<T>(null, MAX_LEVEL, tail);
+		size = new AtomicInteger();
+	}
+
+	/**
+	 * Adds one element to the set. Does nothing if the set already contains
+	 * the element.
+	 *
+	 * @param element
+	 * - the element to add to the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void add(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		int topLevel = randomLevel();
+		SkipNode<T>[] preds = newNodeArray(topLevel + 1);
+		SkipNode<T>[] succs = newNodeArray(topLevel + 1);
+
+		while (true){
+			if (find(element, preds, succs)){
+				return;
+			}
+
+			SkipNode<T> newNode = new SkipNode<T>(element, topLevel, null);
+			for (int level = 0; level <= topLevel; ++level){
+				newNode.nextLargest[level].set(succs[level], false);
+			}
+
+			// Linking the bottom level is the moment the element is added.
+			if (!preds[0].nextLargest[0].compareAndSet(succs[0], newNode, false, false)){
+				continue;
+			}
+			size.incrementAndGet();
+
+			for (int level = 1; level <= topLevel; ++level){
+				while (!preds[level].nextLargest[level].compareAndSet(succs[level], newNode, false, false)){
+					find(element, preds, succs);
+
+					// Stop if the new node has been removed in the meantime.
+					SkipNode<T> oldSucc = newNode.nextLargest[level].getReference();
+					if (oldSucc != succs[level] && !newNode.nextLargest[level].compareAndSet(oldSucc, succs[level], false, false)){
+						return;
+					}
+				}
+			}
+			return;
+		}
+	} // add
+
+	/**
+	 * Removes the specified element from the set. Does nothing if the set
+	 * doesn't contain the element.
+	 *
+	 * @param element
+	 * - the element to remove from the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void remove(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		// Only the bottom level is needed to find the node to remove.
+		SkipNode<T>[] preds = newNodeArray(1);
+		SkipNode<T>[] succs = newNodeArray(1);
+		if (!find(element, preds, succs)){
+			return;
+		}
+
+		SkipNode<T> toRemove = succs[0];
+		boolean[] marked = {false};
+		for (int level = toRemove.topLevel; level > 0; --level){
+			SkipNode<T> succ = toRemove.nextLargest[level].get(marked);
+			while (!marked[0]){
+				toRemove.nextLargest[level].compareAndSet(succ, succ, false, true);
+				succ = toRemove.nextLargest[level].get(marked);
+			}
+		}
+
+		// Marking the bottom level is the moment the element is removed. Only
+		// the thread that succeeds removes it, the others find it gone.
+		SkipNode<T> succ = toRemove.nextLargest[0].get(marked);
+		while (!marked[0]){
+			if (toRemove.nextLargest[0].compareAndSet(succ, succ, false, true)){
+				size.decrementAndGet();
+				find(element, preds, succs);
+				return;
+			}
+			succ = toRemove.nextLargest[0].get(marked);
+		}
+	} // remove
+
+	/**
+	 * Checks if the element is present in the set. The search never writes
+	 * to the set, it just steps over removed nodes.
+	 *
+	 * @param element
+	 * - the element to search for.
+	 * @return
+	 * true if the element is present, otherwise false.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public boolean contains(T element){
+		SkipNode<T> found = nextPresent(predecessor(element, false));
+		return found != tail && comparator.compare(found.value, element) == 0;
+	} // contains
+
+	/**
+	 * Returns the smallest element in the set.
+	 *
+	 * @throws
+	 * NoSuchElementException if the set is empty.
+	 */
+	public T first(){
+		SkipNode<T> found = nextPresent(head);
+		if (found == tail){
+			throw new NoSuchElementException();
+		}
+		return found.value;
+	} // first
+
+	/**
+	 * Returns the largest element in the set.
+	 *
+	 * @throws
+	 * NoSuchElementException if the set is empty.
+	 */
+	public T last(){
+		boolean[] marked = {false};
+		SkipNode<T> pred = head;
+
+		for (int level = MAX_LEVEL; level >= 0; --level){
+			SkipNode<T> currNode = pred.nextLargest[level].getReference();
+			while (currNode != tail){
+				SkipNode<T> succ = currNode.nextLargest[level].get(marked);
+				if (!marked[0]){
+					pred = currNode;
+				}
+				currNode = succ;
+			}
+		}
+
+		if (pred == head){
+			throw new NoSuchElementException();
+		}
+		return pred.value;
+	} // last
+
+	/**
+	 * Returns the largest element in the set that is smaller than or equal to
+	 * the supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T floor(T element){
+		return predecessor(element, true).value;
+	} // floor
+
+	/**
+	 * Returns the smallest element in the set that is larger than or equal to
+	 * the supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T ceiling(T element){
+		return nextPresent(predecessor(element, false)).value;
+	} // ceiling
+
+	/**
+	 * Returns the largest element in the set that is strictly smaller than the
+	 * supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T lower(T element){
+		return predecessor(element, false).value;
+	} // lower
+
+	/**
+	 * Returns the smallest element in the set that is strictly larger than the
+	 * supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T higher(T element){
+		return nextPresent(predecessor(element, true)).value;
+	} // higher
+
+	/**
+	 * Returns the size of the set, i.e. the number of elements in the set.
+	 * While other threads modify the set the size is only an estimate.
+	 */
+	public int size(){
+		return size.get();
+	} // size
+
+	/**
+	 * Returns a string representation of the set.
+	 */
+	public String toString(){
+		StringBuilder builder = new StringBuilder("[");
+
+		for (T element : this){
+			if (builder.length() != 1){
+				builder.append( ", " );
+			}
+			builder.append( element );
+		}
+
+		return builder.append("]").toString();
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over the elements in order.
+	 */
+	public Iterator<T> iterator(){
+		return new LockFreeIterator();
+	} // iterator
+
+	/**
+	 * Searches for the element and records on every level the last node with
+	 * a smaller element and the node after it. Only the levels that fit in 
+	 * the arrays are recorded, so callers size them to the levels they use.
+	 * Removed nodes met on the way are unlinked. If an unlink fails, another
+	 * thread has changed the links, and the search starts over from the top.
+	 *
+	 * @param preds
+	 * - filled with the predecessor on the lowest levels.
+	 * @param succs
+	 * - filled with the successor on the lowest levels.
+	 * @return
+	 * true if the successor on the bottom level contains the element.
+	 */
+	private boolean find(T element, SkipNode<T>[] preds, SkipNode<T>[] succs){
+		boolean[] marked = {false};
+
+		retry:
+		while (true){
+			SkipNode<T> pred = head;
+			for (int level = MAX_LEVEL; level >= 0; --level){
+				SkipNode<T> currNode = pred.nextLargest[level].getReference();
+				while (true){
+					SkipNode<T> succ = currNode.nextLargest[level].get(marked);
+					while (marked[0]){
+						if (!pred.nextLargest[level].compareAndSet(currNode, succ, false, false)){
+							continue retry;
+						}
+						currNode = succ;
+						succ = currNode.nextLargest[level].get(marked);
+					}
+
+					if (currNode != tail && comparator.compare(currNode.value, element) < 0){
+						pred = currNode;
+						currNode = succ;
+					} else {
+						break;
+					}
+				}
+				if (level < preds.length){
+					preds[level] = pred;
+					succs[level] = currNode;
+				}
+			}
+			return succs[0] != tail && comparator.compare(succs[0].value, element) == 0;
+		}
+	} // find
+
+	/**
+	 * Returns the last node on the bottom level whose element is smaller
+	 * than, or if inclusive is true equal to, the supplied element. The search
+	 * steps over removed nodes without unlinking them.
+	 *
+	 * @return
+	 * the node found, or head if there is none.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	private SkipNode<T> predecessor(T element, boolean inclusive){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		boolean[] marked = {false};
+		SkipNode<T> pred = head;
+
+		for (int level = MAX_LEVEL; level >= 0; --level){
+			SkipNode<T> currNode = pred.nextLargest[level].getReference();
+			while (true){
+				SkipNode<T> succ = currNode.nextLargest[level].get(marked);
+				while (marked[0]){
+					currNode = succ;
+					succ = currNode.nextLargest[level].get(marked);
+				}
+
+				if (currNode == tail){
+					break;
+				}
+				int cmp = comparator.compare(currNode.value, element);
+				if (cmp < 0 || inclusive && cmp == 0){
+					pred = currNode;
+					currNode = succ;
+				} else {
+					break;
+				}
+			}
+		}
+		return pred;
+	} // predecessor
+
+	/**
+	 * Returns the first node after currNode on the bottom level that hasn't
+	 * been removed, or tail if there is none.
+	 */
+	private SkipNode<T> nextPresent(SkipNode<T> currNode){
+		SkipNode<T> next = currNode.nextLargest[0].getReference();
+		while (next != tail && next.nextLargest[0].isMarked()){
+			next = next.nextLargest[0].getReference();
+		}
+		return next;
+	}
+
+	/**
+	 * Creates an array of nodes. Java can't create arrays of a generic type 
+	 * directly, so this is the one place that creates them unchecked.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <T> SkipNode<T>[] newNodeArray(int length){
+		return new SkipNode[length];
+	}
+
+	/**
+	 * Draws the top level of a new node. Every level is half as likely as the
+	 * one below it.
+	 */
+	private static int randomLevel(){
+		int level = Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << MAX_LEVEL));
+		return Math.min(level, MAX_LEVEL);
+	}
+
+
+	/**
+	 * Node of the skip list. The links to the next larger node on every level
+	 * the node belongs to also carry the mark that tells the node is removed.
+	 */
+	private static class SkipNode<T> {
+
+		final T value;
+		final int topLevel;
+		final AtomicMarkableReference<SkipNode<T> >[] nextLargest;
+
+		SkipNode(T value, int topLevel, SkipNode<T> next){
+			this.value = value;
+			this.topLevel = topLevel;
+			nextLargest = newLinkArray(topLevel + 1);
+			for (int level = 0; level <= topLevel; ++level){
+				nextLargest[level] = new AtomicMarkableReference<SkipNode<T> >(next, false);
+			}
+		}
+
+		/**
+		 * Creates the array of links, unchecked like newNodeArray.
+		 */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private static <T> AtomicMarkableReference<SkipNode<T> >[] newLinkArray(int length){
+			return new AtomicMarkableReference[length];
+		}
+	} // SkipNode
+
+
+	/**
+	 * Weakly consistent iterator. It follows the bottom level and skips the
+	 * nodes that have been removed.
+	 */
+	private class LockFreeIterator implements Iterator<T>{
+
+		private SkipNode<T> nextNode;
+		private T lastReturned;
+		private boolean removalValid;
+
+		public LockFreeIterator(){
+			nextNode = nextPresent(head);
+			removalValid = false;
+		}
+
+		public boolean hasNext(){
+			return nextNode != tail;
+		}
+
+		/**
+		 * Returns the next element in the set.
+		 *
+		 * @throws
+		 * NoSuchElementException if there are no more elements in the set.
+		 */
+		public T next(){
+			if (!hasNext())
+				throw new NoSuchElementException();
+			removalValid = true;
+			lastReturned = nextNode.value;
+			nextNode = nextPresent(nextNode);
+			return lastReturned;
+		}
+
+		/**
+		 * Removes the element last returned by next from the set.
+		 *
+		 * @throws
+		 * IllegalStateException if a call to next() hasn't been done.
+		 */
+		public void remove(){
+			if (!removalValid)
+				throw new IllegalStateException();
+			removalValid = false;
+			LockFreeSortedSet.this.remove(lastReturned);
+		}
+	} // LockFreeIterator
+
+} // LockFreeSortedSet
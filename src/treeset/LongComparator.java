@@ -0,0 +1,25 @@
+package treeset;
+
+/**
+ * Comparison function for long values. Used by LongTreeSet so that values can
+ * be compared without being boxed.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public interface LongComparator {
+
+	/**
+	 * Compares the two values.
+	 *
+	 * @param o1
+	 * - the first value to compare.
+	 * @param o2
+	 * - the second value to compare.
+	 * @return
+	 * a negative integer, zero, or a positive integer as the first value is
+	 * less than, equal to, or greater than the second.
+	 */
+	int compare(long o1, long o2);
+
+} // LongComparator
@@ -0,0 +1,357 @@
+package treeset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Read-only sorted set kept in a memory-mapped file. The file holds a small
+ * header followed by the elements in order, each one encoded in the same
+ * number of bytes by a FixedWidthCodec. Searches are binary searches directly
+ * in the mapped memory, so opening the set doesn't read or decode anything,
+ * the elements don't take any heap, and several processes that open the same
+ * file share its pages in the operating system's page cache.
+ * <p>
+ * A file is written from a MyTreeSet with {@link #write}. It has to be opened
+ * with the same codec, and with a comparator that orders the elements like the
+ * set that wrote it. Files larger than a MappedByteBuffer can address are
+ * mapped in several segments.
+ *
+ * @param <T>
+ * - the datatype of the elements contained in the set
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class MappedTreeSet<T extends Comparable<T> > implements Iterable<T>{
+
+	private static final int MAGIC = 0x4D545346; // "MTSF"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int SEGMENT_SIZE = 1 << 30;
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	private final ByteBuffer[] segments;
+	private final int elementsPerSegment;
+	private final long size;
+	private final FixedWidthCodec<T> codec;
+	private final Comparator<T> comparator;
+
+	/**
+	 * Maps the elements of an opened file.
+	 */
+	private MappedTreeSet(FileChannel channel, FixedWidthCodec<T> codec, Comparator<T> comparator) throws IOException{
+		this.codec = codec;
+		this.comparator = comparator;
+		int width = codec.width();
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining()){
+			if (channel.read(header, header.position()) < 0){
+				throw new IOException("Not a mapped MyTreeSet file.");
+			}
+		}
+		header.flip();
+		if (header.getInt() != MAGIC){
+			throw new IOException("Not a mapped MyTreeSet file.");
+		}
+		int version = header.getInt();
+		if (version != VERSION){
+			throw new IOException("Unsupported version " + version + ".");
+		}
+		if (header.getInt() != width){
+			throw new IOException("The file was written with another element width.");
+		}
+		size = header.getLong();
+		// Compared by division, so that a huge size can't overflow.
+		if (size < 0 || size > (channel.size() - HEADER_SIZE) / width){
+			throw new IOException("Corrupt size " + size + ".");
+		}
+
+		elementsPerSegment = SEGMENT_SIZE / width;
+		int segmentCount = (int) ((size + elementsPerSegment - 1) / elementsPerSegment);
+		segments = new ByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; ++i){
+			long first = (long) i * elementsPerSegment;
+			long count = Math.min(elementsPerSegment, size - first);
+			MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * width, count * width);
+			segments[i] = segment;
+		}
+	}
+
+	/**
+	 * Writes the elements of the set to a file that can be opened as a
+	 * MappedTreeSet. Any existing file is replaced.
+	 *
+	 * @param set
+	 * - the set to write.
+	 * @param file
+	 * - the file to write to.
+	 * @param codec
+	 * - encodes the elements.
+	 *
+	 * @throws
+	 * IOException if writing the file fails.
+	 * @throws
+	 * NullPointerException if any of the arguments is null.
+	 */
+	public static <T extends Comparable<T> > void write(MyTreeSet<T> set, Path file, FixedWidthCodec<T> codec) throws IOException{
+		if (set == null || file == null || codec == null){
+			throw new NullPointerException("Arguments can't be null.");
+		}
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(WRITE_BUFFER_SIZE, HEADER_SIZE + codec.width()));
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(codec.width());
+			buffer.putLong(set.size());
+			buffer.position(HEADER_SIZE);
+
+			for (T element : set){
+				if (buffer.remaining() < codec.width()){
+					writeFully(channel, buffer);
+				}
+				codec.put(buffer, element);
+			}
+			writeFully(channel, buffer);
+		} finally {
+			channel.close();
+		}
+	} // write
+
+	/**
+	 * Opens a file written by write. The elements are ordered by compareTo.
+	 *
+	 * @param file
+	 * - the file to open.
+	 * @param codec
+	 * - decodes the elements, the same codec the file was written with.
+	 * @return
+	 * the set in the file.
+	 *
+	 * @throws
+	 * IOException if the file can't be read or wasn't written by write.
+	 * @throws
+	 * NullPointerException if any of the arguments is null.
+	 */
+	public static <T extends Comparable<T> > MappedTreeSet<T> open(Path file, FixedWidthCodec<T> codec) throws IOException{
+		return open(file, codec, new NaturalOrder<T>());
+	} // open
+
+	/**
+	 * Opens a file written by write from a set that used the supplied
+	 * comparator.
+	 *
+	 * @throws
+	 * IOException if the file can't be read or wasn't written by write.
+	 * @throws
+	 * NullPointerException if any of the arguments is null.
+	 */
+	public static <T extends Comparable<T> > MappedTreeSet<T> open(Path file, FixedWidthCodec<T> codec, Comparator<T> comparator) throws IOException{
+		if (file == null || codec == null || comparator == null){
+			throw new NullPointerException("Arguments can't be null.");
+		}
+
+		// The mapping stays valid after the channel is closed.
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new MappedTreeSet<T>(channel, codec, comparator);
+		} finally {
+			channel.close();
+		}
+	} // open
+
+	/**
+	 * Checks if the element is present in the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public boolean contains(T element){
+		long index = search(element, false);
+		return index < size && comparator.compare(get(index), element) == 0;
+	} // contains
+
+	/**
+	 * Returns the smallest element in the set.
+	 *
+	 * @throws
+	 * NoSuchElementException if the set is empty.
+	 */
+	public T first(){
+		if (size == 0){
+			throw new NoSuchElementException();
+		}
+		return get(0);
+	} // first
+
+	/**
+	 * Returns the largest element in the set.
+	 *
+	 * @throws
+	 * NoSuchElementException if the set is empty.
+	 */
+	public T last(){
+		if (size == 0){
+			throw new NoSuchElementException();
+		}
+		return get(size - 1);
+	} // last
+
+	/**
+	 * Returns the largest element in the set that is smaller than or equal to
+	 * the supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T floor(T element){
+		long index = search(element, true) - 1;
+		return index < 0 ? null : get(index);
+	} // floor
+
+	/**
+	 * Returns the smallest element in the set that is larger than or equal to
+	 * the supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T ceiling(T element){
+		long index = search(element, false);
+		return index == size ? null : get(index);
+	} // ceiling
+
+	/**
+	 * Returns the largest element in the set that is strictly smaller than the
+	 * supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T lower(T element){
+		long index = search(element, false) - 1;
+		return index < 0 ? null : get(index);
+	} // lower
+
+	/**
+	 * Returns the smallest element in the set that is strictly larger than the
+	 * supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T higher(T element){
+		long index = search(element, true);
+		return index == size ? null : get(index);
+	} // higher
+
+	/**
+	 * Returns the number of elements in the set. A file may hold more than
+	 * Integer.MAX_VALUE elements, so the size is a long.
+	 */
+	public long size(){
+		return size;
+	} // size
+
+	/**
+	 * Returns a string representation of the set.
+	 */
+	public String toString(){
+		StringBuilder builder = new StringBuilder("[");
+
+		for (T element : this){
+			if (builder.length() != 1){
+				builder.append( ", " );
+			}
+			builder.append( element );
+		}
+
+		return builder.append("]").toString();
+	}
+
+	/**
+	 * Returns an iterator that decodes the elements in order.
+	 */
+	public Iterator<T> iterator(){
+		return new MappedIterator();
+	} // iterator
+
+	/**
+	 * Binary search for the first index whose element is larger than, or if
+	 * skipEqual is false larger than or equal to, the supplied element.
+	 *
+	 * @return
+	 * the index found, or size if every element is smaller.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	private long search(T element, boolean skipEqual){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		long low = 0;
+		long high = size;
+		while (low < high){
+			long mid = (low + high) >>> 1;
+			int cmp = comparator.compare(get(mid), element);
+			if (cmp < 0 || skipEqual && cmp == 0){
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	} // search
+
+	private T get(long index){
+		int segment = (int) (index / elementsPerSegment);
+		int offset = (int) (index % elementsPerSegment) * codec.width();
+		return codec.get(segments[segment], offset);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException{
+		buffer.flip();
+		while (buffer.hasRemaining()){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+
+	/**
+	 * Iterates over the elements by their index in the file.
+	 */
+	private class MappedIterator implements Iterator<T>{
+
+		private long index = 0;
+
+		public boolean hasNext(){
+			return index < size;
+		}
+
+		/**
+		 * Returns the next element in the set.
+		 *
+		 * @throws
+		 * NoSuchElementException if there are no more elements in the set.
+		 */
+		public T next(){
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return get(index++);
+		}
+	} // MappedIterator
+
+} // MappedTreeSet
@@ -0,0 +1,480 @@
+package treeset;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+
+/**
+ * Map whose keys are kept in order. Either by using the compareTo-method or
+ * the supplied comparator. The map runs on the same tree, linked list and
+ * balancing as MyTreeSet: the keys are the elements of a MyTreeSet whose
+ * nodes also carry the value mapped to the key. An entry therefore costs one
+ * node, and every operation, including computeIfAbsent and merge, finds its
+ * entry in a single descent of the tree.
+ *
+ * @param <K>
+ * - the datatype of the keys
+ * @param <V>
+ * - the datatype of the values
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class MyTreeMap<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V> >{
+
+	private final KeySet<K, V> keys;
+
+	/**
+	 * Creates an empty MyTreeMap object. Any comparisons between keys will be
+	 * done with the compareTo. The tree isn't balanced.
+	 */
+	public MyTreeMap(){
+		this(Balancing.NONE);
+	}
+
+	/**
+	 * Creates an empty MyTreeMap object and installs the supplied comparator.
+	 * The tree isn't balanced.
+	 *
+	 * @param comparator
+	 * - the comparator that is to be used to compare keys in the map.
+	 *
+	 * @throws
+	 * NullPointerException if comparator is null.
+	 */
+	public MyTreeMap(Comparator<K> comparator){
+		this(comparator, Balancing.NONE);
+	}
+
+	/**
+	 * Creates an empty MyTreeMap object that keeps its tree in shape with the
+	 * supplied balancing strategy.
+	 *
+	 * @param balancing
+	 * - the balancing strategy to use for the tree.
+	 *
+	 * @throws
+	 * NullPointerException if balancing is null.
+	 */
+	public MyTreeMap(Balancing balancing){
+		keys = new KeySet<K, V>(balancing);
+	}
+
+	/**
+	 * Creates an empty MyTreeMap object that installs the supplied comparator
+	 * and keeps its tree in shape with the supplied balancing strategy.
+	 *
+	 * @throws
+	 * NullPointerException if comparator or balancing is null.
+	 */
+	public MyTreeMap(Comparator<K> comparator, Balancing balancing){
+		keys = new KeySet<K, V>(comparator, balancing);
+	}
+
+	/**
+	 * Returns the value mapped to the key.
+	 *
+	 * @param key
+	 * - the key to search for.
+	 * @return
+	 * the value, or null if the key isn't in the map.
+	 *
+	 * @throws
+	 * NullPointerException if key is null.
+	 */
+	public V get(K key){
+		EntryNode<K, V> node = findNode(key);
+		return node == null ? null : node.mapping;
+	} // get
+
+	/**
+	 * Checks if the key is present in the map.
+	 *
+	 * @throws
+	 * NullPointerException if key is null.
+	 */
+	public boolean containsKey(K key){
+		return findNode(key) != null;
+	} // containsKey
+
+	/**
+	 * Maps the key to the value, replacing any value already mapped to it.
+	 *
+	 * @param key
+	 * - the key to map.
+	 * @param value
+	 * - the value to map the key to, may be null.
+	 * @return
+	 * the value that was mapped to the key, or null if there was none.
+	 *
+	 * @throws
+	 * NullPointerException if key is null.
+	 */
+	public V put(K key, V value){
+		EntryNode<K, V> node = entry(keys.addNode(key));
+		V oldValue = node.mapping;
+		node.mapping = value;
+		return oldValue;
+	} // put
+
+	/**
+	 * Removes the key and its value from the map. Does nothing if the map
+	 * doesn't contain the key.
+	 *
+	 * @param key
+	 * - the key to remove.
+	 * @return
+	 * the value that was mapped to the key, or null if there was none.
+	 *
+	 * @throws
+	 * NullPointerException if key is null.
+	 */
+	public V remove(K key){
+		EntryNode<K, V> node = findNode(key);
+		if (node == null){
+			return null;
+		}
+		keys.removeNode(node);
+		return node.mapping;
+	} // remove
+
+	/**
+	 * Returns the value mapped to the key. If there is none, the value is
+	 * computed by the function and mapped to the key, unless it's null. The
+	 * entry is added before the function is called, so the tree is searched
+	 * only once. A new entry is unlinked again if the function returns null
+	 * or throws. The function must not modify the map.
+	 *
+	 * @param key
+	 * - the key to search for.
+	 * @param mappingFunction
+	 * - computes the value from the key.
+	 * @return
+	 * the current value, or null if there is none.
+	 *
+	 * @throws
+	 * NullPointerException if key or mappingFunction is null.
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction){
+		if (mappingFunction == null){
+			throw new NullPointerException("Function can't be null.");
+		}
+
+		int oldSize = keys.size();
+		EntryNode<K, V> node = entry(keys.addNode(key));
+		if (node.mapping != null){
+			return node.mapping;
+		}
+
+		V value = null;
+		try {
+			value = mappingFunction.apply(key);
+		} finally {
+			if (value == null && keys.size() != oldSize){
+				keys.removeNode(node);
+			}
+		}
+		node.mapping = value;
+		return value;
+	} // computeIfAbsent
+
+	/**
+	 * Maps the key to the value if the key has no value. Otherwise the old
+	 * and the new value are combined by the function, and the key is removed
+	 * if the function returns null. The tree is searched only once.
+	 *
+	 * @param key
+	 * - the key to map.
+	 * @param value
+	 * - the value to map or combine with the old one.
+	 * @param remappingFunction
+	 * - combines the old and the new value.
+	 * @return
+	 * the new value, or null if the key was removed.
+	 *
+	 * @throws
+	 * NullPointerException if key, value or remappingFunction is null.
+	 */
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction){
+		if (value == null){
+			throw new NullPointerException("Value can't be null.");
+		}
+		if (remappingFunction == null){
+			throw new NullPointerException("Function can't be null.");
+		}
+
+		EntryNode<K, V> node = entry(keys.addNode(key));
+		if (node.mapping == null){
+			node.mapping = value;
+			return value;
+		}
+
+		V newValue = remappingFunction.apply(node.mapping, value);
+		if (newValue == null){
+			keys.removeNode(node);
+		} else {
+			node.mapping = newValue;
+		}
+		return newValue;
+	} // merge
+
+	/**
+	 * Returns the smallest key in the map.
+	 *
+	 * @throws
+	 * NoSuchElementException if the map is empty.
+	 */
+	public K firstKey(){
+		return keys.first();
+	} // firstKey
+
+	/**
+	 * Returns the largest key in the map.
+	 *
+	 * @throws
+	 * NoSuchElementException if the map is empty.
+	 */
+	public K lastKey(){
+		return keys.last();
+	} // lastKey
+
+	/**
+	 * Returns the largest key that is smaller than or equal to the supplied
+	 * key, or null if there is no such key.
+	 *
+	 * @throws
+	 * NullPointerException if key is null.
+	 */
+	public K floorKey(K key){
+		return keys.floor(key);
+	} // floorKey
+
+	/**
+	 * Returns the smallest key that is larger than or equal to the supplied
+	 * key, or null if there is no such key.
+	 *
+	 * @throws
+	 * NullPointerException if key is null.
+	 */
+	public K ceilingKey(K key){
+		return keys.ceiling(key);
+	} // ceilingKey
+
+	/**
+	 * Returns the largest key that is strictly smaller than the supplied key,
+	 * or null if there is no such key.
+	 *
+	 * @throws
+	 * NullPointerException if key is null.
+	 */
+	public K lowerKey(K key){
+		return keys.lower(key);
+	} // lowerKey
+
+	/**
+	 * Returns the smallest key that is strictly larger than the supplied key,
+	 * or null if there is no such key.
+	 *
+	 * @throws
+	 * NullPointerException if key is null.
+	 */
+	public K higherKey(K key){
+		return keys.higher(key);
+	} // higherKey
+
+	/**
+	 * Returns the number of entries in the map.
+	 */
+	public int size(){
+		return keys.size();
+	} // size
+
+	/**
+	 * Returns a string representation of the map.
+	 */
+	public String toString(){
+		StringBuilder builder = new StringBuilder("{");
+
+		Node<K> tail = keys.getTail();
+		Node<K> currNode = keys.getHead().getNextLargest();
+		while (currNode != tail){
+			if (builder.length() != 1){
+				builder.append( ", " );
+			}
+			builder.append( currNode.getValue() ).append( "=" ).append( MyTreeMap.<K, V>entry(currNode).mapping );
+			currNode = currNode.getNextLargest();
+		}
+
+		return builder.append("}").toString();
+	}
+
+	/**
+	 * Returns a fail-fast iterator over the entries in key order. The value
+	 * of an entry can be changed with setValue.
+	 */
+	public Iterator<Map.Entry<K, V> > iterator(){
+		return new EntryIterator();
+	} // iterator
+
+	private EntryNode<K, V> findNode(K key){
+		if (key == null){
+			throw new NullPointerException("Key can't be null.");
+		}
+		return entry(keys.findNode(key));
+	}
+
+	/**
+	 * Returns the node as an EntryNode. The cast is unchecked: the runtime
+	 * only checks that the node is an EntryNode, not the type of its value.
+	 * It is safe because the key set of the map is a KeySet, whose newNode
+	 * creates every node as an EntryNode, and only this map stores values of
+	 * type V in them.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <K, V> EntryNode<K, V> entry(Node<K> node){
+		return (EntryNode<K, V>) node;
+	}
+
+
+	/**
+	 * The set of keys. Its nodes are EntryNodes, so that they can carry the
+	 * values.
+	 */
+	private static class KeySet<K extends Comparable<K>, V> extends MyTreeSet<K>{
+
+		KeySet(Balancing balancing){
+			super(balancing);
+		}
+
+		KeySet(Comparator<K> comparator, Balancing balancing){
+			super(comparator, balancing);
+		}
+
+		Node<K> newNode(K key){
+			return new EntryNode<K, V>(key);
+		}
+	} // KeySet
+
+
+	/**
+	 * Node of the key set that also holds the value mapped to its key.
+	 */
+	private static class EntryNode<K, V> extends Node<K>{
+
+		private V mapping;
+
+		EntryNode(K key){
+			super(key);
+		}
+	} // EntryNode
+
+
+	/**
+	 * Entry handed out by the iterator. It writes changed values through to
+	 * its node.
+	 */
+	private static class Entry<K, V> implements Map.Entry<K, V>{
+
+		private final EntryNode<K, V> node;
+
+		Entry(EntryNode<K, V> node){
+			this.node = node;
+		}
+
+		public K getKey(){
+			return node.getValue();
+		}
+
+		public V getValue(){
+			return node.mapping;
+		}
+
+		public V setValue(V value){
+			V oldValue = node.mapping;
+			node.mapping = value;
+			return oldValue;
+		}
+
+		public boolean equals(Object other){
+			if (!(other instanceof Map.Entry)){
+				return false;
+			}
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+			return Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+		}
+
+		public int hashCode(){
+			return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+		}
+
+		public String toString(){
+			return getKey() + "=" + getValue();
+		}
+	} // Entry
+
+
+	/**
+	 * Iterates over the entries by following the linked list of the key set.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<K, V> >{
+
+		private Node<K> currentNode;
+		private int expectedCount;
+		private boolean removalValid;
+
+		public EntryIterator(){
+			currentNode = keys.getHead();
+			expectedCount = keys.getModCount();
+			removalValid = false;
+		}
+
+		public boolean hasNext(){
+			return currentNode.getNextLargest() != keys.getTail();
+		}
+
+		/**
+		 * Returns the next entry in the map.
+		 *
+		 * @throws
+		 * NoSuchElementException if there are no more entries in the map.
+		 * @throws
+		 * ConcurrentModificationException if the map has been modified by
+		 * someone else than the iterator.
+		 */
+		public Map.Entry<K, V> next(){
+			if (!hasNext())
+				throw new NoSuchElementException();
+			if (expectedCount != keys.getModCount())
+				throw new ConcurrentModificationException();
+			removalValid = true;
+			currentNode = currentNode.getNextLargest();
+			return new Entry<K, V>(MyTreeMap.<K, V>entry(currentNode));
+		}
+
+		/**
+		 * Removes the entry last returned by next, by unlinking its node.
+		 *
+		 * @throws
+		 * IllegalStateException if a call to next() hasn't been done.
+		 * @throws
+		 * ConcurrentModificationException if the map has been modified by
+		 * someone else than the iterator.
+		 */
+		public void remove(){
+			if (!removalValid)
+				throw new IllegalStateException();
+			if (expectedCount != keys.getModCount())
+				throw new ConcurrentModificationException();
+			removalValid = false;
+			keys.removeNode(currentNode);
+			expectedCount = keys.getModCount();
+		}
+	} // EntryIterator
+
+} // MyTreeMap
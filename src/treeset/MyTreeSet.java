@@ -1,15 +1,26 @@
 package treeset;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
  * Set based on a binary search tree. The elements in the set are kept in order.
  * Either by using the compareTo-method or the supplied comparator. The set does 
- * not contain any duplicates.
+ * not contain any duplicates. By default the tree isn't balanced, but the set 
+ * can be created with a {@link Balancing} strategy that keeps the height of the 
+ * tree logarithmic, or one that moves accessed elements to the root. A set 
+ * that tracks order statistics can also find the rank of an element and the 
+ * element at a given rank in O(height).
  *
  * @param <T>
  * - the datatype of the elements contained in the set
@@ -25,13 +36,19 @@ public class MyTreeSet<T extends Comparable<T> > implements Iterable<T>{
 	
 	private int size;
 	private Comparator<T> comparator;
+	private Balancing balancing;
+	private boolean orderStatistics;
 	private int modCount;
+	private MyTreeSetMetrics metrics;
 	
 	/**
 	 * Creates an empty MyTreeSet object. Any comparisons between elements will 
-	 * be done with the compareTo.
+	 * be done with the compareTo. The tree isn't balanced.
 	 */
 	public MyTreeSet(){
+		comparator = new NaturalOrder<T>();
+		balancing = Balancing.NONE;
+		
 		head = new Node<T>(null);
 		tail = new Node<T>(null);
 		
@@ -58,6 +75,87 @@ public class MyTreeSet<T extends Comparable<T> > implements Iterable<T>{
 		this.comparator = comparator;
 	}
 	
+	/**
+	 * Creates an empty MyTreeSet object that keeps its tree in shape with the 
+	 * supplied balancing strategy. Any comparisons between elements will be 
+	 * done with the compareTo.
+	 * 
+	 * @param balancing
+	 * - the balancing strategy to use for the tree.
+	 * 
+	 * @throws
+	 * NullPointerException if balancing is null.
+	 */
+	public MyTreeSet(Balancing balancing){
+		this();
+		
+		if (balancing == null){
+			throw new NullPointerException("Balancing can't be null.");
+		}
+		this.balancing = balancing;
+	}
+	
+	/**
+	 * Creates an empty MyTreeSet object that installs the supplied comparator
+	 * and keeps its tree in shape with the supplied balancing strategy.
+	 * 
+	 * @param comparator
+	 * - the comparator that is to be used to compare elements in the set.
+	 * @param balancing
+	 * - the balancing strategy to use for the tree.
+	 * 
+	 * @throws
+	 * NullPointerException if comparator or balancing is null.
+	 */
+	public MyTreeSet(Comparator<T> comparator, Balancing balancing){
+		this(comparator);
+		
+		if (balancing == null){
+			throw new NullPointerException("Balancing can't be null.");
+		}
+		this.balancing = balancing;
+	}
+	
+	/**
+	 * Creates an empty MyTreeSet object with the supplied balancing strategy
+	 * that, if orderStatistics is true, keeps the size of every subtree up to
+	 * date. This makes rank, select and countInRange available at the cost of
+	 * walking up to the root on every add and remove. Any comparisons between
+	 * elements will be done with the compareTo.
+	 * 
+	 * @param balancing
+	 * - the balancing strategy to use for the tree.
+	 * @param orderStatistics
+	 * - true if the set should track order statistics.
+	 * 
+	 * @throws
+	 * NullPointerException if balancing is null.
+	 */
+	public MyTreeSet(Balancing balancing, boolean orderStatistics){
+		this(balancing);
+		this.orderStatistics = orderStatistics;
+	}
+	
+	/**
+	 * Creates an empty MyTreeSet object that installs the supplied comparator,
+	 * uses the supplied balancing strategy and, if orderStatistics is true, 
+	 * keeps the size of every subtree up to date.
+	 * 
+	 * @param comparator
+	 * - the comparator that is to be used to compare elements in the set.
+	 * @param balancing
+	 * - the balancing strategy to use for the tree.
+	 * @param orderStatistics
+	 * - true if the set should track order statistics.
+	 * 
+	 * @throws
+	 * NullPointerException if comparator or balancing is null.
+	 */
+	public MyTreeSet(Comparator<T> comparator, Balancing balancing, boolean orderStatistics){
+		this(comparator, balancing);
+		this.orderStatistics = orderStatistics;
+	}
+	
 	/**
 	 * Adds one element to the set. Does nothing if the set already contains 
 	 * the element.
@@ -69,143 +167,251 @@ public class MyTreeSet<T extends Comparable<T> > implements Iterable<T>{
 	 * NullPointerException if element is null.
 	 */
 	public void add(T element){
+		addNode(element);
+	} // add
+	
+	/**
+	 * Adds one element to the set, unless it's already present, and returns 
+	 * the node containing it. Whether the node is new can be seen from the 
+	 * size of the set. Used by MyTreeMap, whose nodes carry a value.
+	 * 
+	 * @param element
+	 * - the element to add to the set. 
+	 * @return
+	 * the node containing the element.
+	 * 
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	Node<T> addNode(T element){
 		if (element == null){
 			throw new NullPointerException("Element can't be null.");
 		}
+		if (metrics != null){
+			++metrics.adds;
+		}
+		long comparisonsBefore = comparisonCount();
 		
+		Node<T> node;
 		if (root == null){
-			root = new Node<T>(element);
+			root = newNode(element);
 			addNewNodeToList(head, root);
 			
 			++size;
 			++modCount;
+			node = root;
 		} else {
-			if (comparator != null && addWithComparator(element, root) ){
-				++size;
-				++modCount;
-				
-			} else if ( comparator == null && add(element, root) ){
-				++size;
-				++modCount;
-			}
+			node = add(element, root);
 		}
-	} // add
+		countOperationComparisons(comparisonsBefore);
+		return node;
+	} // addNode
 	
 	/**
-	 * Auxiliary method to add. Finds and adds the element to the correct 
-	 * location in the supplied subtree. Doesn't add the element if it already
-	 * exist in the set. This method is called if no comparator has been set in 
-	 * the object. Traversal through the tree is based on compareTo.
-	 *  
-	 * @param element
-	 * - the element to add to the set.
-	 * @param subroot
-	 * - the root of the subtree in which to add the element.
-	 * @return
-	 * true if the element was added to the set, otherwise false.
+	 * Creates the node for a new element. MyTreeMap overrides it to create 
+	 * nodes that also carry a value.
+	 */
+	Node<T> newNode(T element){
+		return new Node<T>(element);
+	}
+	
+	/**
+	 * Adds all the supplied elements to the set. If the set is empty and the 
+	 * elements come in sorted order, the tree is built directly from them. 
+	 * Neighbouring duplicates are skipped. This takes one comparison per 
+	 * element, to check the order, and gives a perfectly balanced tree 
+	 * whatever balancing the set uses. Otherwise the elements are added one 
+	 * at a time.
+	 * 
+	 * @param elements
+	 * - the elements to add to the set.
+	 * 
+	 * @throws
+	 * NullPointerException if elements or any of the elements is null.
 	 */
-	private boolean add(T element, Node<T> subroot){
+	public void addAll(Iterable<? extends T> elements){
+		if (elements == null){
+			throw new NullPointerException("Elements can't be null.");
+		}
 		
-		T currVal = subroot.getValue();
-		if (currVal.compareTo(element) == 0){
-			return false;
-			
-		} else if (currVal.compareTo(element) > 0){
-			Node<T> leftChild = subroot.getLeftChild();
-			if (leftChild == null){
-				addNewLeftChild(subroot, element);
-				return true;
-				
-			} else {
-				return add(element, leftChild);
+		if (root != null){
+			for (T element : elements){
+				add(element);
 			}
-			
-		} else if (currVal.compareTo(element) < 0){
-			Node<T> rightChild = subroot.getRightChild();
-			if (rightChild == null){
-				addNewRightChild(subroot, element);
-				return true;
-				
-			} else {
-				return add(element, rightChild);
+			return;
+		}
+		
+		ArrayList<T> sorted = new ArrayList<T>();
+		Iterator<? extends T> iter = elements.iterator();
+		while (iter.hasNext()){
+			T element = iter.next();
+			if (element == null){
+				throw new NullPointerException("Element can't be null.");
 			}
 			
+			int cmp = sorted.isEmpty() ? 1 : comparator.compare(element, sorted.get(sorted.size() - 1));
+			if (cmp > 0){
+				sorted.add(element);
+			} else if (cmp < 0){
+				addSorted(sorted);
+				add(element);
+				while (iter.hasNext()){
+					add(iter.next());
+				}
+				return;
+			}
 		}
-		throw new UnsupportedOperationException("The element should have been detected as either smaller, larger or equal.");
-	} // add
+		addSorted(sorted);
+	} // addAll
+	
+	/**
+	 * Builds the tree from elements that are sorted and free of duplicates. 
+	 * The set has to be empty. The middle element becomes the root and the 
+	 * two halves are built into its subtrees in the same way. The nodes are 
+	 * created in order, so each one is appended to the linked list in turn.
+	 * 
+	 * @param sorted
+	 * - the elements to build the tree from.
+	 */
+	private void addSorted(ArrayList<T> sorted){
+		root = buildTree(sorted, 0, sorted.size() - 1);
+		if (root != null){
+			root.setParent(null);
+		}
+		
+		size += sorted.size();
+		++modCount;
+	} // addSorted
+	
+	/**
+	 * Builds a perfectly balanced subtree of the elements between the indices
+	 * from and to, inclusive. The recursion is only as deep as the resulting 
+	 * tree, which is logarithmic.
+	 * 
+	 * @return
+	 * the root of the subtree, or null if the range is empty.
+	 */
+	private Node<T> buildTree(ArrayList<T> sorted, int from, int to){
+		if (from > to){
+			return null;
+		}
+		int mid = (from + to) >>> 1;
+		
+		Node<T> leftChild = buildTree(sorted, from, mid - 1);
+		Node<T> subroot = newNode(sorted.get(mid));
+		addNewNodeToList(tail.getNextSmallest(), subroot);
+		Node<T> rightChild = buildTree(sorted, mid + 1, to);
+		
+		subroot.setLeftChild(leftChild);
+		subroot.setRightChild(rightChild);
+		updateHeight(subroot);
+		updateSubtreeSize(subroot);
+		return subroot;
+	} // buildTree
 	
 	/**
 	 * Auxiliary method to add. Finds and adds the element to the correct 
 	 * location in the supplied subtree. Doesn't add the element if it already
-	 * exist in the set. This method is called in favor of 
-	 * <i>add(T element, Node<T> subroot)</i> if a comparator has been set in 
-	 * MyTreeSet-object. Traversal through the tree is based on the comparator attribute.
+	 * exist in the set. Traversal through the tree is done in a loop and 
+	 * compares the element once with every visited node.
 	 *  
 	 * @param element
 	 * - the element to add to the set.
 	 * @param subroot
 	 * - the root of the subtree in which to add the element.
 	 * @return
-	 * true if the element was added to the set.
+	 * the new node, or the node that already contained the element.
 	 */
-	private boolean addWithComparator(T element, Node<T> subroot){
+	private Node<T> add(T element, Node<T> subroot){
+		Node<T> currNode = subroot;
 		
-		T currVal = subroot.getValue();
-		if (comparator.compare(currVal, element) == 0){
-			return false;
-			
-		} else if (comparator.compare(currVal, element) > 0){
-			Node<T> leftChild = subroot.getLeftChild();
-			if (leftChild == null){
-				addNewLeftChild(subroot, element);
-				return true;
+		while (true){
+			int cmp = comparator.compare(currNode.getValue(), element);
+			if (cmp > 0){
+				Node<T> leftChild = currNode.getLeftChild();
+				if (leftChild == null){
+					return addNewLeftChild(currNode, element);
+				}
+				currNode = leftChild;
 				
-			} else {
-				return addWithComparator(element, leftChild);
-			}
-			
-		} else if (comparator.compare(currVal, element) < 0){
-			Node<T> rightChild = subroot.getRightChild();
-			if (rightChild == null){
-				addNewRightChild(subroot, element);
-				return true;
+			} else if (cmp < 0){
+				Node<T> rightChild = currNode.getRightChild();
+				if (rightChild == null){
+					return addNewRightChild(currNode, element);
+				}
+				currNode = rightChild;
 				
 			} else {
-				return addWithComparator(element, rightChild);
+				if (balancing == Balancing.SPLAY){
+					splay(currNode);
+				}
+				return currNode;
 			}
-			
-		} 
-		throw new UnsupportedOperationException("The element should have been detected as either smaller, larger or equal.");	
-	} //addWithComparator
+		}
+	} // add
 	
 	/**
 	 * Creates a new node containing the supplied element and adds it to the 
 	 * specified node as left child. Any existing left child will be lost.
+	 * The tree is rebalanced if the set is balanced, and the new node is 
+	 * splayed to the root if the tree is a splay tree.
 	 * 
 	 * @param currNode
 	 * - the node for which to set left child. 
 	 * @param element
 	 * - the element to add in the new node.
+	 * @return
+	 * the new node.
 	 */
-	private void addNewLeftChild(Node<T> currNode, T element){
-		Node<T> leftChild = new Node<T>(element);
+	private Node<T> addNewLeftChild(Node<T> currNode, T element){
+		Node<T> leftChild = newNode(element);
 		currNode.setLeftChild( leftChild );
 		addNewNodeToList(leftChild, currNode);
+		
+		if (orderStatistics){
+			adjustSubtreeSizes(currNode, 1);
+		}
+		++size;
+		++modCount;
+		
+		if (balancing == Balancing.AVL){
+			rebalance(currNode);
+		} else if (balancing == Balancing.SPLAY){
+			splay(leftChild);
+		}
+		return leftChild;
 	}
 	
 	/**
 	 * Creates a new node containing the supplied element and adds it to the 
 	 * specified node as right child. Any existing right child will be lost.
+	 * The tree is rebalanced if the set is balanced, and the new node is 
+	 * splayed to the root if the tree is a splay tree.
 	 * 
 	 * @param currNode
 	 * - the node for which to set right child. 
 	 * @param element
 	 * - the element to add in the new node.
+	 * @return
+	 * the new node.
 	 */
-	private void addNewRightChild(Node<T> currNode, T element){
-		Node<T> rightChild = new Node<T>(element);
+	private Node<T> addNewRightChild(Node<T> currNode, T element){
+		Node<T> rightChild = newNode(element);
 		currNode.setRightChild( rightChild );
 		addNewNodeToList(currNode, rightChild);
+		
+		if (orderStatistics){
+			adjustSubtreeSizes(currNode, 1);
+		}
+		++size;
+		++modCount;
+		
+		if (balancing == Balancing.AVL){
+			rebalance(currNode);
+		} else if (balancing == Balancing.SPLAY){
+			splay(rightChild);
+		}
+		return rightChild;
 	}
 	
 	/**
@@ -252,288 +458,1857 @@ public class MyTreeSet<T extends Comparable<T> > implements Iterable<T>{
 		if(element == null){
 			throw new NullPointerException("Element can't be null.");
 		}
+		if (metrics != null){
+			++metrics.contains;
+		}
+		long comparisonsBefore = comparisonCount();
 		
-		if(root != null && comparator == null)
-			return contains(root, element);
-		else if (root != null)
-			return containsWithComparator(root, element);
-		else
-			return false;
+		boolean found = findNode(element) != null;
+		countOperationComparisons(comparisonsBefore);
+		return found;
 	}//contains
 	
 	
 	/**
-	 * Searches for the element using compareTo.
+	 * Searches for the node containing the element. The search walks down the 
+	 * tree in a loop and compares the element once with every visited node.
+	 * In a splay tree the node found, or the last node visited if the element
+	 * isn't present, is splayed to the root.
 	 * 
-	 * @param toSearch
-	 * The root of the current subtree.
 	 * @param element
 	 * The element to search for.
 	 * @return
-	 * True if the element is present, otherwise false.
-	 * False if the root is empty. 
+	 * The node containing the element, or null if the element isn't present.
 	 */
-	private boolean contains(Node<T> toSearch, T element){
-		if(toSearch == null){
-			return false;
-		}
-		if(toSearch.getValue().compareTo(element) == 0){
-			return true;
+	Node<T> findNode(T element){
+		Node<T> toSearch = root;
+		Node<T> lastNode = null;
+		
+		while(toSearch != null){
+			lastNode = toSearch;
+			int cmp = comparator.compare(toSearch.getValue(), element);
+			if(cmp < 0){
+				toSearch = toSearch.getRightChild();
+			}else if(cmp > 0){
+				toSearch = toSearch.getLeftChild();
+			}else{
+				break;
+			}
 		}
-		if(toSearch.getValue().compareTo(element) < 0){
-			return contains(toSearch.getRightChild(), element);
-		}else{ // > 0
-			return contains(toSearch.getLeftChild(), element);
+		
+		if (balancing == Balancing.SPLAY && lastNode != null){
+			splay(lastNode);
 		}
-	}//contains
+		return toSearch;
+	}//findNode
 	
 	
 	/**
-	 * Searches for the element using the comparator.
+	 * Returns the smallest element in the set.
 	 * 
-	 * @param toSearch
-	 * The root of the current subtree.
-	 * @param element
-	 * The element to search for.
 	 * @return
-	 * True if the element is present, otherwise false.
-	 * False if the root is empty. 
+	 * the smallest element.
+	 * @throws
+	 * NoSuchElementException if the set is empty.
 	 */
-	private boolean containsWithComparator(Node<T> toSearch, T element){
-		if(toSearch == null){
-			return false;
-		}
-		if(comparator.compare(toSearch.getValue(), element) == 0){
-			return true;
-		}
-		if(comparator.compare(toSearch.getValue(), element) < 0){
-			return containsWithComparator(toSearch.getRightChild(), element);
-		}else{ // > 0
-			return containsWithComparator(toSearch.getLeftChild(), element);
+	public T first(){
+		if (size == 0){
+			throw new NoSuchElementException();
 		}
-	}//containsWithComparator
+		return head.getNextLargest().getValue();
+	} // first
 	
+	/**
+	 * Returns the largest element in the set.
+	 * 
+	 * @return
+	 * the largest element.
+	 * @throws
+	 * NoSuchElementException if the set is empty.
+	 */
+	public T last(){
+		if (size == 0){
+			throw new NoSuchElementException();
+		}
+		return tail.getNextSmallest().getValue();
+	} // last
 	
 	/**
-	 * Removes the specified element from the set. Does nothing if the set doesn't
-	 * contain the element.
+	 * Returns the largest element in the set that is smaller than or equal to
+	 * the supplied element.
 	 * 
 	 * @param element
-	 * - the element to remove from the set. 
-	 * 
+	 * - the element to compare with.
+	 * @return
+	 * the largest element less than or equal to element, or null if there is
+	 * no such element.
 	 * @throws
 	 * NullPointerException if element is null.
 	 */
-	public void remove(T element){
-		if (element == null){
-			throw new NullPointerException("Element can't be null.");
-		}
-		
-		if (comparator != null && root != null){
-			root = removeWithComparator(element, root);
-		} else if ( root != null){
-			root = remove(element, root);
-		}
-	} // remove
+	public T floor(T element){
+		return ceilingNode(element, false).getNextSmallest().getValue();
+	} // floor
 	
 	/**
-	 * Finds and removes the node containing the specified element via recursion. 
-	 * An updated subtree is returned. The search is based on compareTo.
+	 * Returns the smallest element in the set that is larger than or equal to
+	 * the supplied element.
 	 * 
 	 * @param element
-	 * - the element to remove.
-	 * @param currNode
-	 * - the subroot to search for the element.
+	 * - the element to compare with.
 	 * @return
-	 * - subroot to the modified tree
+	 * the smallest element greater than or equal to element, or null if there
+	 * is no such element.
+	 * @throws
+	 * NullPointerException if element is null.
 	 */
-	private Node<T> remove(T element, Node<T> currNode){
-		Node<T> newSubroot = currNode;
-		
-		T currVal = currNode.getValue();
-		if (currVal.compareTo(element) == 0){
-			newSubroot = removeCurrentNode(currNode);
-			
-		} else if (currVal.compareTo(element) > 0){
-			Node<T> leftChild = currNode.getLeftChild();
-			if (leftChild != null){
-				currNode.setLeftChild( remove(element, leftChild) );
-			}
-			
-		} else if (currVal.compareTo(element) < 0){
-			Node<T> rightChild = currNode.getRightChild();
-			if (rightChild != null){
-				currNode.setRightChild( remove(element, rightChild) );
-			} 
-		} 
-		
-		return newSubroot;
-	} // remove
+	public T ceiling(T element){
+		return ceilingNode(element, true).getValue();
+	} // ceiling
 	
 	/**
-	 * Finds and removes the node containing the specified element via recursion. 
-	 * An updated subtree is returned. The search is based on the set comparator.
+	 * Returns the largest element in the set that is strictly smaller than the
+	 * supplied element.
 	 * 
 	 * @param element
-	 * - the element to remove.
-	 * @param currNode
-	 * - the subroot to search for the element.
+	 * - the element to compare with.
 	 * @return
-	 * - subroot to the modified tree
+	 * the largest element less than element, or null if there is no such 
+	 * element.
+	 * @throws
+	 * NullPointerException if element is null.
 	 */
-	private Node<T> removeWithComparator(T element, Node<T> currNode){
-		Node<T> newSubroot = currNode;
-		
-		T currVal = currNode.getValue();
-		if (comparator.compare(currVal, element) == 0){
-			newSubroot = removeCurrentNode(currNode);
-			
-		} else if (comparator.compare(currVal, element) > 0){
-			Node<T> leftChild = currNode.getLeftChild();
-			if (leftChild != null){
-				currNode.setLeftChild( removeWithComparator(element, leftChild) );
-			}
-			
-		} else if (comparator.compare(currVal, element) < 0){
-			Node<T> rightChild = currNode.getRightChild();
-			if (rightChild != null){
-				currNode.setRightChild( removeWithComparator(element, rightChild) );
-			} 
-		} 
-		
-		return newSubroot;
-	} // removeWithComparator
+	public T lower(T element){
+		return ceilingNode(element, true).getNextSmallest().getValue();
+	} // lower
 	
+	/**
+	 * Returns the smallest element in the set that is strictly larger than the
+	 * supplied element.
+	 * 
+	 * @param element
+	 * - the element to compare with.
+	 * @return
+	 * the smallest element greater than element, or null if there is no such
+	 * element.
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T higher(T element){
+		return ceilingNode(element, false).getValue();
+	} // higher
 	
 	/**
-	 * Removes the supplied node from the tree.
-	 * Fetches the node's next largest neighbour and puts it in the 
-	 * removed nodes place. Walks down the tree so all links
-	 * can be connected in the correct order, this only happens if
-	 * the remove-node has two children.
+	 * Finds the node with the smallest element that is larger than, or if 
+	 * inclusive is true equal to, the supplied element. The search walks down
+	 * the tree to where the element is, or would be added. The node found 
+	 * there, or its neighbour in the linked list, is the answer. The 
+	 * neighbours in the other direction are reached through nextSmallest.
+	 * In a splay tree the last node visited is splayed to the root, which 
+	 * leaves the linked list, and therefore the answer, unchanged.
 	 * 
-	 * @param currNode
-	 * - the node to remove from the tree.
+	 * @param element
+	 * - the element to compare with.
+	 * @param inclusive
+	 * - true if a node containing the element itself is accepted.
 	 * @return
-	 * - the new subtree with currNode removed.
+	 * the node found, or tail if every element is smaller.
+	 * @throws
+	 * NullPointerException if element is null.
 	 */
-	private Node<T> removeCurrentNode(Node<T> currNode){
-		Node<T> retVal;
+	Node<T> ceilingNode(T element, boolean inclusive){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
 		
-		Node<T> leftChild = currNode.getLeftChild();
-		Node<T> rightChild = currNode.getRightChild();
+		Node<T> currNode = root;
+		Node<T> lastNode = null;
+		int cmp = 0;
 		
-		if (leftChild != null && rightChild != null){
-			Node<T> smallestNode = removeSmallestValue( rightChild );
-			currNode.setValue( smallestNode.getValue() );
-			
-			if (smallestNode == rightChild){
-				currNode.setRightChild(smallestNode.getRightChild());
+		while (currNode != null){
+			lastNode = currNode;
+			cmp = comparator.compare(currNode.getValue(), element);
+			if (cmp > 0){
+				currNode = currNode.getLeftChild();
+			} else if (cmp < 0){
+				currNode = currNode.getRightChild();
+			} else {
+				break;
 			}
-			
-			retVal = currNode;
-
-		} else if (leftChild != null){
-			retVal = leftChild;
-			removeFromList( currNode );
-			
-		} else if (rightChild != null){
-			retVal = rightChild;
-			removeFromList( currNode );
-			
-		} else {
-			retVal = null;
-			removeFromList( currNode );
 		}
-		--size;
-		++modCount;
 		
-		return retVal;
-	}
+		if (lastNode == null){
+			return tail;
+		}
+		if (balancing == Balancing.SPLAY){
+			splay(lastNode);
+		}
+		return cmp > 0 || cmp == 0 && inclusive ? lastNode : lastNode.getNextLargest();
+	} // ceilingNode
 	
 	/**
-	 * Auxiliary method for remove. Finds the smallest value in the specified 
-	 * subtree and returns it. The node containing the value is removed.
-	 * As long as the smallest value isn't in the subroot, then the right 
-	 * subtree of the smallest node is passed on to the parent node
-	 * as the parent new left node. If the smallest value instead is in the 
-	 * subroot, then the smallest value will only be removed from the list, and
-	 * NOT from the tree itself.
+	 * Finds the node with the smallest element that is larger than or equal 
+	 * to the supplied element, searching only the supplied subtree. If every
+	 * element in the subtree is smaller, the node after the subtree in the 
+	 * linked list is returned. Unlike ceilingNode it never splays.
 	 * 
-	 * @param subroot
-	 * - the root from which to search for the smallest value
 	 * @return
-	 * the node containing the smallest value in the subtree
+	 * the node found, or tail if the subtree is empty.
 	 */
-	private Node<T> removeSmallestValue(Node<T> subroot){
-		Node<T> parentNode = subroot;
-		Node<T> nextNode = subroot;
+	private Node<T> ceilingIn(Node<T> subroot, T element){
+		Node<T> currNode = subroot;
+		Node<T> lastNode = null;
+		int cmp = 0;
 		
-		while ( nextNode.getLeftChild() != null){
-			parentNode = nextNode;
-			nextNode = nextNode.getLeftChild();
+		while (currNode != null){
+			lastNode = currNode;
+			cmp = comparator.compare(currNode.getValue(), element);
+			if (cmp > 0){
+				currNode = currNode.getLeftChild();
+			} else if (cmp < 0){
+				currNode = currNode.getRightChild();
+			} else {
+				return currNode;
+			}
 		}
 		
-		if (parentNode != nextNode){
-			parentNode.setLeftChild( nextNode.getRightChild() );
+		if (lastNode == null){
+			return tail;
 		}
-		
-		removeFromList( nextNode );
-		
-		return nextNode;
-	} // removeSmallestValue
+		return cmp > 0 ? lastNode : lastNode.getNextLargest();
+	} // ceilingIn
+	
 	
 	/**
-	 * Removes the specified node from the linked list spanning through the tree.
-	 * @param toRemove
-	 * - the node to remove from the list.
+	 * Returns the number of elements in the set that are smaller than the 
+	 * supplied element. The element itself doesn't have to be in the set.
+	 * 
+	 * @param element
+	 * - the element to find the rank of.
+	 * @return
+	 * the rank of the element, counted from 0.
+	 * 
+	 * @throws
+	 * NullPointerException if element is null.
+	 * @throws
+	 * UnsupportedOperationException if the set doesn't track order statistics.
 	 */
-	private void removeFromList(Node<T> toRemove){
-		Node<T> smaller = toRemove.getNextSmallest();
-		Node<T> larger = toRemove.getNextLargest();
-		
-		smaller.setNextLargest( larger );
-		larger.setNextSmallest( smaller );
-	}
+	public int rank(T element){
+		return countBelow(element, false);
+	} // rank
 	
 	/**
-	 * Returns the size of the set, i.e. the number of elements in the set.
+	 * Returns the element with the supplied rank, i.e. the element that has
+	 * index smaller elements in the set.
+	 * 
+	 * @param index
+	 * - the rank of the element, counted from 0.
 	 * @return
-	 * the size of the set.
+	 * the element with the rank.
+	 * 
+	 * @throws
+	 * IndexOutOfBoundsException if index is negative or not less than the size.
+	 * @throws
+	 * UnsupportedOperationException if the set doesn't track order statistics.
 	 */
-	public int size(){
-		return size;
-	} // size
+	public T select(int index){
+		checkOrderStatistics();
+		if (index < 0 || index >= size){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return selectNode(index).getValue();
+	} // select
 	
 	/**
-	 * Returns a string representation of the set.
-	 * @return
-	 * - a string representing the set
+	 * Returns the node with the supplied rank, which has to be within the 
+	 * set. Walks down the tree once, guided by the sizes of the left subtrees.
 	 */
-	public String toString(){
-		StringBuilder builder = new StringBuilder();
-		
-		Node<T> tmpNode = head.getNextLargest();
-		while (tmpNode != tail){
-			if (builder.length() != 0){
-				builder.append( ", " );
+	private Node<T> selectNode(int index){
+		Node<T> currNode = root;
+		while (true){
+			int leftSize = subtreeSize(currNode.getLeftChild());
+			if (index < leftSize){
+				currNode = currNode.getLeftChild();
+			} else if (index > leftSize){
+				index -= leftSize + 1;
+				currNode = currNode.getRightChild();
+			} else {
+				return currNode;
 			}
-			
-			builder.append( tmpNode.toString() );
-			tmpNode = tmpNode.getNextLargest();
 		}
-		
-		return "[" + builder.toString() + "]";
-	}
-
+	} // selectNode
 	
 	/**
-	 * Returns an iterator belonging to MyTreeSet.
+	 * Returns the number of elements that are larger than or equal to 
+	 * fromElement and smaller than toElement.
+	 * 
+	 * @param fromElement
+	 * - the inclusive lower bound of the range.
+	 * @param toElement
+	 * - the exclusive upper bound of the range.
+	 * @return
+	 * the number of elements in the range.
+	 * 
+	 * @throws
+	 * NullPointerException if fromElement or toElement is null.
+	 * @throws
+	 * IllegalArgumentException if fromElement is larger than toElement.
+	 * @throws
+	 * UnsupportedOperationException if the set doesn't track order statistics.
 	 */
-	public Iterator<T> iterator(){
-		return new MyTreeSetIterator();
-	} // iterator
-	
+	public int countInRange(T fromElement, T toElement){
+		return countInRange(fromElement, true, toElement, false);
+	} // countInRange
+	
+	/**
+	 * Returns the number of elements between fromElement and toElement. 
+	 * 
+	 * @param fromElement
+	 * - the lower bound of the range.
+	 * @param fromInclusive
+	 * - true if the lower bound is included in the range.
+	 * @param toElement
+	 * - the upper bound of the range.
+	 * @param toInclusive
+	 * - true if the upper bound is included in the range.
+	 * @return
+	 * the number of elements in the range.
+	 * 
+	 * @throws
+	 * NullPointerException if fromElement or toElement is null.
+	 * @throws
+	 * IllegalArgumentException if fromElement is larger than toElement.
+	 * @throws
+	 * UnsupportedOperationException if the set doesn't track order statistics.
+	 */
+	public int countInRange(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive){
+		if (fromElement == null || toElement == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+		if (comparator.compare(fromElement, toElement) > 0){
+			throw new IllegalArgumentException("fromElement can't be larger than toElement.");
+		}
+		
+		int count = countBelow(toElement, toInclusive) - countBelow(fromElement, !fromInclusive);
+		return Math.max(count, 0);
+	} // countInRange
+	
+	/**
+	 * Counts the elements smaller than, or if inclusive is true smaller than
+	 * or equal to, the supplied element. Walks down the tree once and adds 
+	 * up the sizes of the subtrees to the left of the path.
+	 */
+	private int countBelow(T element, boolean inclusive){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+		checkOrderStatistics();
+		
+		int count = 0;
+		Node<T> currNode = root;
+		while (currNode != null){
+			int cmp = comparator.compare(currNode.getValue(), element);
+			if (cmp < 0){
+				count += subtreeSize(currNode.getLeftChild()) + 1;
+				currNode = currNode.getRightChild();
+			} else if (cmp > 0){
+				currNode = currNode.getLeftChild();
+			} else {
+				return count + subtreeSize(currNode.getLeftChild()) + (inclusive ? 1 : 0);
+			}
+		}
+		return count;
+	} // countBelow
+	
+	private void checkOrderStatistics(){
+		if (!orderStatistics){
+			throw new UnsupportedOperationException("The set doesn't track order statistics.");
+		}
+	}
+	
+	
+	/**
+	 * Removes the specified element from the set. Does nothing if the set doesn't
+	 * contain the element.
+	 * 
+	 * @param element
+	 * - the element to remove from the set. 
+	 * 
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void remove(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+		if (metrics != null){
+			++metrics.removes;
+		}
+		long comparisonsBefore = comparisonCount();
+		
+		Node<T> toRemove = findNode(element);
+		if (toRemove != null){
+			removeNode(toRemove);
+		}
+		countOperationComparisons(comparisonsBefore);
+	} // remove
+	
+	
+	/**
+	 * Removes the supplied node from the tree and from the linked list.
+	 * If the node has two children its next largest neighbour, which is the 
+	 * smallest node in the right subtree, is moved into the removed node's 
+	 * place. The removed node keeps its nextLargest reference, so an iterator 
+	 * positioned at it can still reach the rest of the list. The tree is 
+	 * rebalanced if the set is balanced. In a splay tree the lowest node whose
+	 * subtree changed is splayed to the root.
+	 * 
+	 * @param currNode
+	 * - the node to remove from the tree.
+	 */
+	void removeNode(Node<T> currNode){
+		Node<T> leftChild = currNode.getLeftChild();
+		Node<T> rightChild = currNode.getRightChild();
+		Node<T> parent = currNode.getParent();
+		Node<T> changedNode;
+		
+		if (leftChild != null && rightChild != null){
+			Node<T> successor = currNode.getNextLargest();
+			
+			if (successor != rightChild){
+				changedNode = successor.getParent();
+				changedNode.setLeftChild( successor.getRightChild() );
+				successor.setRightChild( rightChild );
+			} else {
+				changedNode = successor;
+			}
+			successor.setLeftChild( leftChild );
+			successor.setHeight( currNode.getHeight() );
+			successor.setSubtreeSize( currNode.getSubtreeSize() );
+			replaceChild(parent, currNode, successor);
+			
+		} else if (leftChild != null){
+			changedNode = parent;
+			replaceChild(parent, currNode, leftChild);
+			
+		} else {
+			changedNode = parent;
+			replaceChild(parent, currNode, rightChild);
+		}
+		removeFromList( currNode );
+		
+		currNode.setLeftChild(null);
+		currNode.setRightChild(null);
+		currNode.setParent(null);
+		
+		--size;
+		++modCount;
+		
+		if (orderStatistics){
+			adjustSubtreeSizes(changedNode, -1);
+		}
+		if (balancing == Balancing.AVL){
+			rebalance(changedNode);
+		} else if (balancing == Balancing.SPLAY && changedNode != null){
+			splay(changedNode);
+		}
+	} // removeNode
+	
+	/**
+	 * Puts newChild in oldChild's place under the supplied parent. If parent is 
+	 * null, oldChild is the root and newChild becomes the new root.
+	 * 
+	 * @param parent
+	 * - the parent of oldChild, or null if oldChild is the root.
+	 * @param oldChild
+	 * - the node to replace.
+	 * @param newChild
+	 * - the node to put in oldChild's place, may be null.
+	 */
+	private void replaceChild(Node<T> parent, Node<T> oldChild, Node<T> newChild){
+		if (parent == null){
+			root = newChild;
+			if (newChild != null){
+				newChild.setParent(null);
+			}
+		} else if (parent.getLeftChild() == oldChild){
+			parent.setLeftChild(newChild);
+		} else {
+			parent.setRightChild(newChild);
+		}
+	}
+	
+	/**
+	 * Walks from the supplied node towards the root, updating the heights and 
+	 * rotating every node that has become unbalanced. The walk stops as soon 
+	 * as a subtree keeps the height it had before, since nothing above it can 
+	 * have changed.
+	 * 
+	 * @param currNode
+	 * - the lowest node whose subtree has changed, may be null.
+	 */
+	private void rebalance(Node<T> currNode){
+		while (currNode != null){
+			int oldHeight = currNode.getHeight();
+			int balance = height(currNode.getLeftChild()) - height(currNode.getRightChild());
+			
+			if (balance > 1){
+				Node<T> leftChild = currNode.getLeftChild();
+				if (height(leftChild.getLeftChild()) < height(leftChild.getRightChild())){
+					rotateLeft(leftChild);
+				}
+				currNode = rotateRight(currNode);
+				
+			} else if (balance < -1){
+				Node<T> rightChild = currNode.getRightChild();
+				if (height(rightChild.getRightChild()) < height(rightChild.getLeftChild())){
+					rotateRight(rightChild);
+				}
+				currNode = rotateLeft(currNode);
+				
+			} else {
+				updateHeight(currNode);
+			}
+			
+			if (currNode.getHeight() == oldHeight){
+				return;
+			}
+			currNode = currNode.getParent();
+		}
+	} // rebalance
+	
+	/**
+	 * Rotates the subtree rooted in the supplied node to the left. The node's
+	 * right child takes its place in the tree.
+	 * 
+	 * @param currNode
+	 * - the root of the subtree to rotate.
+	 * @return
+	 * the new root of the subtree.
+	 */
+	private Node<T> rotateLeft(Node<T> currNode){
+		Node<T> newSubroot = currNode.getRightChild();
+		
+		replaceChild(currNode.getParent(), currNode, newSubroot);
+		currNode.setRightChild( newSubroot.getLeftChild() );
+		newSubroot.setLeftChild( currNode );
+		
+		updateHeight(currNode);
+		updateHeight(newSubroot);
+		if (orderStatistics){
+			updateSubtreeSize(currNode);
+			updateSubtreeSize(newSubroot);
+		}
+		return newSubroot;
+	}
+	
+	/**
+	 * Rotates the subtree rooted in the supplied node to the right. The node's
+	 * left child takes its place in the tree.
+	 * 
+	 * @param currNode
+	 * - the root of the subtree to rotate.
+	 * @return
+	 * the new root of the subtree.
+	 */
+	private Node<T> rotateRight(Node<T> currNode){
+		Node<T> newSubroot = currNode.getLeftChild();
+		
+		replaceChild(currNode.getParent(), currNode, newSubroot);
+		currNode.setLeftChild( newSubroot.getRightChild() );
+		newSubroot.setRightChild( currNode );
+		
+		updateHeight(currNode);
+		updateHeight(newSubroot);
+		if (orderStatistics){
+			updateSubtreeSize(currNode);
+			updateSubtreeSize(newSubroot);
+		}
+		return newSubroot;
+	}
+	
+	/**
+	 * Moves the supplied node to the root of the tree with the rotations of a 
+	 * bottom-up splay. A node that is on the same side of its parent as the 
+	 * parent is of the grandparent is lifted by first rotating the 
+	 * grandparent and then the parent, otherwise by rotating the parent and 
+	 * then the grandparent. This roughly halves the depth of every node on 
+	 * the path, which is what gives the amortized O(log n) bound. Rotations 
+	 * don't change the order of the nodes, so the linked list is left as it 
+	 * is. The heights of the nodes aren't kept up to date in a splay tree.
+	 * 
+	 * @param currNode
+	 * - the node to move to the root.
+	 */
+	private void splay(Node<T> currNode){
+		while (currNode.getParent() != null){
+			Node<T> parent = currNode.getParent();
+			Node<T> grandparent = parent.getParent();
+			
+			if (grandparent == null){
+				rotateUp(currNode);
+			} else if ((grandparent.getLeftChild() == parent) == (parent.getLeftChild() == currNode)){
+				rotateUp(parent);
+				rotateUp(currNode);
+			} else {
+				rotateUp(currNode);
+				rotateUp(currNode);
+			}
+		}
+	} // splay
+	
+	/**
+	 * Rotates the supplied node up into its parent's place.
+	 */
+	private void rotateUp(Node<T> currNode){
+		Node<T> parent = currNode.getParent();
+		if (parent.getLeftChild() == currNode){
+			rotateRight(parent);
+		} else {
+			rotateLeft(parent);
+		}
+	}
+	
+	/**
+	 * Recalculates the height of the supplied node from the heights of its 
+	 * children.
+	 */
+	private void updateHeight(Node<T> currNode){
+		currNode.setHeight( 1 + Math.max(height(currNode.getLeftChild()), height(currNode.getRightChild())) );
+	}
+	
+	/**
+	 * Returns the height of the supplied subtree, which is 0 for an empty subtree.
+	 */
+	private static int height(Node<?> subroot){
+		return subroot == null ? 0 : subroot.getHeight();
+	}
+	
+	/**
+	 * Adds delta to the subtree size of the supplied node and all of its 
+	 * ancestors.
+	 * 
+	 * @param currNode
+	 * - the lowest node whose subtree has changed, may be null.
+	 * @param delta
+	 * - the number of nodes added to, or if negative removed from, the subtree.
+	 */
+	private void adjustSubtreeSizes(Node<T> currNode, int delta){
+		while (currNode != null){
+			currNode.setSubtreeSize( currNode.getSubtreeSize() + delta );
+			currNode = currNode.getParent();
+		}
+	}
+	
+	/**
+	 * Recalculates the subtree size of the supplied node from the sizes of its
+	 * children.
+	 */
+	private void updateSubtreeSize(Node<T> currNode){
+		currNode.setSubtreeSize( 1 + subtreeSize(currNode.getLeftChild()) + subtreeSize(currNode.getRightChild()) );
+	}
+	
+	/**
+	 * Returns the number of nodes in the supplied subtree, which is 0 for an
+	 * empty subtree.
+	 */
+	private static int subtreeSize(Node<?> subroot){
+		return subroot == null ? 0 : subroot.getSubtreeSize();
+	}
+	
+	/**
+	 * Removes the specified node from the linked list spanning through the tree.
+	 * @param toRemove
+	 * - the node to remove from the list.
+	 */
+	private void removeFromList(Node<T> toRemove){
+		Node<T> smaller = toRemove.getNextSmallest();
+		Node<T> larger = toRemove.getNextLargest();
+		
+		smaller.setNextLargest( larger );
+		larger.setNextSmallest( smaller );
+	}
+	
+	/**
+	 * Returns a new set with the elements that are in this set, the other set 
+	 * or both. The new set has the comparator and balancing of this set.
+	 * 
+	 * @param other
+	 * - the set to combine with this set.
+	 * @return
+	 * the union of the two sets.
+	 * 
+	 * @throws
+	 * NullPointerException if other is null.
+	 */
+	public MyTreeSet<T> union(MyTreeSet<T> other){
+		return newSetOf(merge(other, true, true, true));
+	} // union
+	
+	/**
+	 * Returns a new set with the elements that are in both this set and the
+	 * other set. The new set has the comparator and balancing of this set.
+	 * 
+	 * @param other
+	 * - the set to combine with this set.
+	 * @return
+	 * the intersection of the two sets.
+	 * 
+	 * @throws
+	 * NullPointerException if other is null.
+	 */
+	public MyTreeSet<T> intersection(MyTreeSet<T> other){
+		return newSetOf(merge(other, false, true, false));
+	} // intersection
+	
+	/**
+	 * Returns a new set with the elements of this set that aren't in the 
+	 * other set. The new set has the comparator and balancing of this set.
+	 * 
+	 * @param other
+	 * - the set whose elements to leave out.
+	 * @return
+	 * the difference between the two sets.
+	 * 
+	 * @throws
+	 * NullPointerException if other is null.
+	 */
+	public MyTreeSet<T> difference(MyTreeSet<T> other){
+		return newSetOf(merge(other, true, false, false));
+	} // difference
+	
+	/**
+	 * Returns a new set with the elements that are in exactly one of this set
+	 * and the other set. The new set has the comparator and balancing of this
+	 * set.
+	 * 
+	 * @param other
+	 * - the set to combine with this set.
+	 * @return
+	 * the symmetric difference of the two sets.
+	 * 
+	 * @throws
+	 * NullPointerException if other is null.
+	 */
+	public MyTreeSet<T> symmetricDifference(MyTreeSet<T> other){
+		return newSetOf(merge(other, true, false, true));
+	} // symmetricDifference
+	
+	/**
+	 * Adds the elements of the other set to this set. The tree is rebuilt 
+	 * from the merged elements.
+	 * 
+	 * @param other
+	 * - the set whose elements to add.
+	 * 
+	 * @throws
+	 * NullPointerException if other is null.
+	 */
+	public void unionWith(MyTreeSet<T> other){
+		replaceWith(merge(other, true, true, true));
+	} // unionWith
+	
+	/**
+	 * Removes the elements of this set that aren't in the other set. The tree
+	 * is rebuilt from the remaining elements.
+	 * 
+	 * @param other
+	 * - the set whose elements to keep.
+	 * 
+	 * @throws
+	 * NullPointerException if other is null.
+	 */
+	public void intersectWith(MyTreeSet<T> other){
+		replaceWith(merge(other, false, true, false));
+	} // intersectWith
+	
+	/**
+	 * Removes the elements of the other set from this set. The tree is 
+	 * rebuilt from the remaining elements.
+	 * 
+	 * @param other
+	 * - the set whose elements to remove.
+	 * 
+	 * @throws
+	 * NullPointerException if other is null.
+	 */
+	public void differenceWith(MyTreeSet<T> other){
+		replaceWith(merge(other, true, false, false));
+	} // differenceWith
+	
+	/**
+	 * Keeps the elements that are in exactly one of this set and the other 
+	 * set. The tree is rebuilt from the resulting elements.
+	 * 
+	 * @param other
+	 * - the set to combine with this set.
+	 * 
+	 * @throws
+	 * NullPointerException if other is null.
+	 */
+	public void symmetricDifferenceWith(MyTreeSet<T> other){
+		replaceWith(merge(other, true, false, true));
+	} // symmetricDifferenceWith
+	
+	/**
+	 * Walks the linked lists of this set and the other set side by side and 
+	 * collects the elements the operation keeps, in order. This costs 
+	 * O(m + n) when both sets order their elements the same way. Otherwise 
+	 * the elements of the other set are first sorted into the order of this
+	 * set, keeping the first of those that are equal in it.
+	 * 
+	 * @param other
+	 * - the set to merge with.
+	 * @param keepOnlyThis
+	 * - true to keep the elements that are only in this set.
+	 * @param keepBoth
+	 * - true to keep the elements that are in both sets.
+	 * @param keepOnlyOther
+	 * - true to keep the elements that are only in the other set.
+	 * @return
+	 * the kept elements, sorted and free of duplicates.
+	 */
+	private ArrayList<T> merge(MyTreeSet<T> other, boolean keepOnlyThis, boolean keepBoth, boolean keepOnlyOther){
+		if (other == null){
+			throw new NullPointerException("Set can't be null.");
+		}
+		
+		Iterator<T> otherIter;
+		if (baseComparator().equals(other.baseComparator())){
+			otherIter = other.iterator();
+		} else {
+			ArrayList<T> otherElements = new ArrayList<T>(other.size());
+			for (T element : other){
+				otherElements.add(element);
+			}
+			Collections.sort(otherElements, comparator);
+			
+			// Elements the other set keeps apart can be equal in this order.
+			int kept = 0;
+			for (int i=0; i < otherElements.size(); ++i){
+				if (kept == 0 || comparator.compare(otherElements.get(kept - 1), otherElements.get(i)) != 0){
+					otherElements.set(kept++, otherElements.get(i));
+				}
+			}
+			otherElements.subList(kept, otherElements.size()).clear();
+			otherIter = otherElements.iterator();
+		}
+		
+		ArrayList<T> merged = new ArrayList<T>();
+		Node<T> thisNode = head.getNextLargest();
+		T otherVal = otherIter.hasNext() ? otherIter.next() : null;
+		
+		while (thisNode != tail && otherVal != null){
+			int cmp = comparator.compare(thisNode.getValue(), otherVal);
+			if (cmp < 0){
+				if (keepOnlyThis){
+					merged.add(thisNode.getValue());
+				}
+				thisNode = thisNode.getNextLargest();
+				
+			} else if (cmp > 0){
+				if (keepOnlyOther){
+					merged.add(otherVal);
+				}
+				otherVal = otherIter.hasNext() ? otherIter.next() : null;
+				
+			} else {
+				if (keepBoth){
+					merged.add(thisNode.getValue());
+				}
+				thisNode = thisNode.getNextLargest();
+				otherVal = otherIter.hasNext() ? otherIter.next() : null;
+			}
+		}
+		
+		while (keepOnlyThis && thisNode != tail){
+			merged.add(thisNode.getValue());
+			thisNode = thisNode.getNextLargest();
+		}
+		while (keepOnlyOther && otherVal != null){
+			merged.add(otherVal);
+			otherVal = otherIter.hasNext() ? otherIter.next() : null;
+		}
+		
+		return merged;
+	} // merge
+	
+	/**
+	 * Creates a set with the comparator and balancing of this set and builds
+	 * its tree from the sorted elements.
+	 */
+	private MyTreeSet<T> newSetOf(ArrayList<T> sorted){
+		MyTreeSet<T> result = new MyTreeSet<T>(baseComparator(), balancing, orderStatistics);
+		result.addSorted(sorted);
+		return result;
+	}
+	
+	/**
+	 * Throws away the tree of this set and builds a new one from the sorted
+	 * elements.
+	 */
+	private void replaceWith(ArrayList<T> sorted){
+		root = null;
+		head.setNextLargest(tail);
+		tail.setNextSmallest(head);
+		size = 0;
+		
+		addSorted(sorted);
+	}
+	
+	/**
+	 * Returns the height of the tree, i.e. the number of nodes on the longest
+	 * path from the root to a leaf. The height is counted level by level, so 
+	 * the call is O(n) but safe for degenerate trees.
+	 * @return
+	 * the height of the tree, 0 if the set is empty.
+	 */
+	int height(){
+		return depthHistogram().length;
+	} // height
+	
+	/**
+	 * Counts the nodes at every depth of the tree, level by level. The walk 
+	 * visits no more nodes than the set has elements, so it ends even if the 
+	 * tree is changed by another thread during the walk.
+	 * @return
+	 * the number of nodes at every depth, starting with the root at depth 0.
+	 */
+	int[] depthHistogram(){
+		ArrayList<Integer> counts = new ArrayList<Integer>();
+		ArrayDeque<Node<T>> level = new ArrayDeque<Node<T>>();
+		if (root != null){
+			level.add(root);
+		}
+		
+		int visitsLeft = size;
+		while (!level.isEmpty() && visitsLeft > 0){
+			counts.add(level.size());
+			for (int i = level.size(); i > 0 && visitsLeft > 0; --i, --visitsLeft){
+				Node<T> currNode = level.poll();
+				if (currNode.getLeftChild() != null){
+					level.add(currNode.getLeftChild());
+				}
+				if (currNode.getRightChild() != null){
+					level.add(currNode.getRightChild());
+				}
+			}
+		}
+		
+		int[] histogram = new int[counts.size()];
+		for (int i = 0; i < histogram.length; ++i){
+			histogram[i] = counts.get(i);
+		}
+		return histogram;
+	} // depthHistogram
+
+	/**
+	 * Returns the root of the tree, or null if the set is empty. Used by
+	 * wrappers in the package that search the tree themselves.
+	 */
+	Node<T> getRoot(){
+		return root;
+	}
+
+	/**
+	 * Returns the sentinel node before the smallest element.
+	 */
+	Node<T> getHead(){
+		return head;
+	}
+
+	/**
+	 * Returns the sentinel node after the largest element.
+	 */
+	Node<T> getTail(){
+		return tail;
+	}
+
+	/**
+	 * Returns the comparator used by the set. Never null.
+	 */
+	Comparator<T> getComparator(){
+		return comparator;
+	}
+
+	/**
+	 * Returns the number of modifications made to the set, which fail-fast 
+	 * iterators outside the class compare against.
+	 */
+	int getModCount(){
+		return modCount;
+	}
+
+	/**
+	 * Returns the comparator the set was created with, without the counting 
+	 * wrapper that the metrics install.
+	 */
+	@SuppressWarnings("unchecked")
+	private Comparator<T> baseComparator(){
+		if (comparator instanceof MyTreeSetMetrics.CountingComparator){
+			return ((MyTreeSetMetrics.CountingComparator<T>) comparator).comparator;
+		}
+		return comparator;
+	}
+	
+	/**
+	 * Starts counting the operations and comparisons of the set, unless it 
+	 * already does. The metrics can be published over JMX with their register
+	 * method. While the metrics are off the set doesn't count anything.
+	 * 
+	 * @return
+	 * the metrics of the set.
+	 */
+	public MyTreeSetMetrics enableMetrics(){
+		if (metrics == null){
+			metrics = new MyTreeSetMetrics(this);
+			comparator = new MyTreeSetMetrics.CountingComparator<T>(comparator, metrics);
+		}
+		return metrics;
+	} // enableMetrics
+	
+	/**
+	 * Stops counting and removes the counting comparator. Metrics that have
+	 * been registered with JMX stay registered until they are unregistered.
+	 */
+	public void disableMetrics(){
+		if (metrics != null){
+			comparator = baseComparator();
+			metrics = null;
+		}
+	} // disableMetrics
+	
+	/**
+	 * Returns the number of comparisons counted so far, or 0 if the metrics
+	 * are off.
+	 */
+	private long comparisonCount(){
+		return metrics == null ? 0 : metrics.comparisons;
+	}
+	
+	/**
+	 * Adds the comparisons made since the supplied count to those of add, 
+	 * remove and contains, which the comparisons per operation are based on.
+	 */
+	private void countOperationComparisons(long comparisonsBefore){
+		if (metrics != null){
+			metrics.operationComparisons += metrics.comparisons - comparisonsBefore;
+		}
+	}
+	
+	/**
+	 * Returns the metrics of the set, or null if they aren't enabled.
+	 */
+	public MyTreeSetMetrics getMetrics(){
+		return metrics;
+	} // getMetrics
+	
+	/**
+	 * Returns the size of the set, i.e. the number of elements in the set.
+	 * @return
+	 * the size of the set.
+	 */
+	public int size(){
+		return size;
+	} // size
+	
+	/**
+	 * Returns a string representation of the set.
+	 * @return
+	 * - a string representing the set
+	 */
+	public String toString(){
+		StringBuilder builder = new StringBuilder();
+		
+		Node<T> tmpNode = head.getNextLargest();
+		while (tmpNode != tail){
+			if (builder.length() != 0){
+				builder.append( ", " );
+			}
+			
+			builder.append( tmpNode.toString() );
+			tmpNode = tmpNode.getNextLargest();
+		}
+		
+		return "[" + builder.toString() + "]";
+	}
+
+	
+	/**
+	 * Returns an iterator belonging to MyTreeSet.
+	 */
+	public Iterator<T> iterator(){
+		return new MyTreeSetIterator();
+	} // iterator
+	
+	/**
+	 * Returns a spliterator over the elements in order. The spliterator splits 
+	 * its range in the middle, found by rank if the set tracks order 
+	 * statistics and otherwise along the shape of an AVL tree or by walking 
+	 * the linked list, so parallel work is divided evenly. It reports the 
+	 * comparator of the set, or null if the elements are in their natural 
+	 * order, and is fail-fast.
+	 */
+	public Spliterator<T> spliterator(){
+		return new MyTreeSetSpliterator(head.getNextLargest(), tail, 0, size);
+	} // spliterator
+	
+	/**
+	 * Returns a sequential stream of the elements in order.
+	 */
+	public Stream<T> stream(){
+		return StreamSupport.stream(spliterator(), false);
+	} // stream
+	
+	/**
+	 * Returns a parallel stream of the elements in order.
+	 */
+	public Stream<T> parallelStream(){
+		return StreamSupport.stream(spliterator(), true);
+	} // parallelStream
+	
+	/**
+	 * Returns an iterator that goes from the largest to the smallest element,
+	 * following the nextSmallest references from tail. The iterator is 
+	 * fail-fast and supports remove, just as the ascending iterator.
+	 */
+	public Iterator<T> descendingIterator(){
+		return new MyTreeSetIterator(tail, head, false);
+	} // descendingIterator
+	
+	/**
+	 * Returns a view of the set in reverse order. The view is backed by the
+	 * set, so changes in the set are seen in the view and the other way 
+	 * around.
+	 */
+	public DescendingSet descendingSet(){
+		return new DescendingSet();
+	} // descendingSet
+	
+	/**
+	 * Returns a view of the elements between fromElement and toElement. The 
+	 * view is backed by the set, so changes in the set are seen in the view
+	 * and the other way around.
+	 * 
+	 * @param fromElement
+	 * - the lower bound of the view.
+	 * @param fromInclusive
+	 * - true if the lower bound is included in the view.
+	 * @param toElement
+	 * - the upper bound of the view.
+	 * @param toInclusive
+	 * - true if the upper bound is included in the view.
+	 * @return
+	 * a view of the elements in the range.
+	 * 
+	 * @throws
+	 * NullPointerException if fromElement or toElement is null.
+	 * @throws
+	 * IllegalArgumentException if fromElement is larger than toElement.
+	 */
+	public SubSet subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive){
+		if (fromElement == null || toElement == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+		if (comparator.compare(fromElement, toElement) > 0){
+			throw new IllegalArgumentException("fromElement can't be larger than toElement.");
+		}
+		return new SubSet(fromElement, fromInclusive, toElement, toInclusive);
+	} // subSet
+	
+	/**
+	 * Returns a view of the elements smaller than, or if inclusive is true 
+	 * equal to, toElement. The view is backed by the set.
+	 * 
+	 * @param toElement
+	 * - the upper bound of the view.
+	 * @param inclusive
+	 * - true if the upper bound is included in the view.
+	 * @return
+	 * a view of the elements in the range.
+	 * 
+	 * @throws
+	 * NullPointerException if toElement is null.
+	 */
+	public SubSet headSet(T toElement, boolean inclusive){
+		if (toElement == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+		return new SubSet(null, false, toElement, inclusive);
+	} // headSet
+	
+	/**
+	 * Returns a view of the elements larger than, or if inclusive is true 
+	 * equal to, fromElement. The view is backed by the set.
+	 * 
+	 * @param fromElement
+	 * - the lower bound of the view.
+	 * @param inclusive
+	 * - true if the lower bound is included in the view.
+	 * @return
+	 * a view of the elements in the range.
+	 * 
+	 * @throws
+	 * NullPointerException if fromElement is null.
+	 */
+	public SubSet tailSet(T fromElement, boolean inclusive){
+		if (fromElement == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+		return new SubSet(fromElement, inclusive, null, false);
+	} // tailSet
+	
+	/**
+	 * Returns a cursor positioned before the smallest element. The cursor 
+	 * searches from the last element it visited, which makes it cheap to 
+	 * follow query sequences where each key is close to the previous one.
+	 */
+	public Cursor cursor(){
+		return new Cursor();
+	} // cursor
+	
+	
+	/**
+	 * Spliterator over the nodes from currentNode up to, but not including, 
+	 * endNode in the linked list. If the set tracks order statistics, the 
+	 * range is split at its middle element, found with select. In an AVL tree
+	 * the first split is made at the root of the tree. After that, a suffix 
+	 * is split at the right child of its first node and a prefix at the left 
+	 * child of its end node. Both of those nodes are the roots of the subtrees
+	 * covering the range, so each split divides the range about as evenly as
+	 * the tree is balanced. In any other tree, or if no such subtree root lies
+	 * within the range, the split walks half the estimated size along the 
+	 * linked list. That costs O(k) for a range of k elements, but the shape 
+	 * of an unbalanced tree says nothing about where the middle is.
+	 * <p>
+	 * The size is exact before any split. After a split the sizes are exact if
+	 * the set tracks order statistics, and halved estimates otherwise.
+	 */
+	private class MyTreeSetSpliterator implements Spliterator<T>{
+		
+		private Node<T> currentNode;
+		private Node<T> endNode;
+		private int side;
+		private long estimate;
+		private int expectedCount;
+		
+		/**
+		 * @param side
+		 * - 0 if the spliterator covers the whole tree, 1 if it's a suffix and
+		 * -1 if it's a prefix of its parent spliterator.
+		 * @param estimate
+		 * - the number of elements covered.
+		 */
+		MyTreeSetSpliterator(Node<T> currentNode, Node<T> endNode, int side, long estimate){
+			this.currentNode = currentNode;
+			this.endNode = endNode;
+			this.side = side;
+			this.estimate = estimate;
+			this.expectedCount = modCount;
+		}
+		
+		public Spliterator<T> trySplit(){
+			if (currentNode == endNode || estimate < 2){
+				return null;
+			}
+			long prefixSize = estimate >>> 1;
+			
+			Node<T> splitNode = null;
+			if (orderStatistics){
+				long index = countBelow(currentNode.getValue(), false) + prefixSize;
+				if (index < size){
+					splitNode = selectNode((int) index);
+				}
+			} else if (balancing == Balancing.AVL){
+				splitNode = subtreeRootSplit();
+			}
+			
+			if (splitNode == null){
+				splitNode = currentNode;
+				for (long i = 0; i < prefixSize && splitNode != endNode; ++i){
+					splitNode = splitNode.getNextLargest();
+				}
+				if (splitNode == endNode){
+					return null;
+				}
+			}
+			
+			MyTreeSetSpliterator prefix = new MyTreeSetSpliterator(currentNode, splitNode, -1, prefixSize);
+			currentNode = splitNode;
+			estimate -= prefixSize;
+			side = 1;
+			return prefix;
+		} // trySplit
+		
+		/**
+		 * Returns the root of the subtree that covers the range, or null if 
+		 * that node doesn't lie strictly inside the range.
+		 */
+		private Node<T> subtreeRootSplit(){
+			Node<T> splitNode = null;
+			if (side == 0){
+				splitNode = root;
+			} else if (side > 0){
+				splitNode = currentNode.getRightChild();
+			} else if (endNode != tail){
+				splitNode = endNode.getLeftChild();
+			}
+			
+			if (splitNode == null || splitNode == currentNode || splitNode == endNode 
+					|| comparator.compare(currentNode.getValue(), splitNode.getValue()) >= 0){
+				return null;
+			}
+			return splitNode;
+		} // subtreeRootSplit
+		
+		public boolean tryAdvance(Consumer<? super T> action){
+			if (action == null){
+				throw new NullPointerException("Action can't be null.");
+			}
+			if (currentNode == endNode){
+				return false;
+			}
+			if (expectedCount != modCount){
+				throw new ConcurrentModificationException();
+			}
+			
+			T value = currentNode.getValue();
+			currentNode = currentNode.getNextLargest();
+			if (estimate > 0){
+				--estimate;
+			}
+			action.accept(value);
+			return true;
+		} // tryAdvance
+		
+		public void forEachRemaining(Consumer<? super T> action){
+			if (action == null){
+				throw new NullPointerException("Action can't be null.");
+			}
+			
+			Node<T> tmpNode = currentNode;
+			currentNode = endNode;
+			estimate = 0;
+			while (tmpNode != endNode){
+				action.accept(tmpNode.getValue());
+				tmpNode = tmpNode.getNextLargest();
+			}
+			if (expectedCount != modCount){
+				throw new ConcurrentModificationException();
+			}
+		} // forEachRemaining
+		
+		public long estimateSize(){
+			return estimate;
+		}
+		
+		public int characteristics(){
+			int sized = 0;
+			if (orderStatistics){
+				sized = Spliterator.SIZED | Spliterator.SUBSIZED;
+			} else if (side == 0){
+				sized = Spliterator.SIZED;
+			}
+			return sized | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED | Spliterator.NONNULL;
+		}
+		
+		public Comparator<? super T> getComparator(){
+			Comparator<T> base = baseComparator();
+			return base instanceof NaturalOrder ? null : base;
+		}
+		
+	} // MyTreeSetSpliterator
+	
+	
+	/**
+	 * A view of the elements of a MyTreeSet that lie within a range. A missing
+	 * bound means the range is open in that direction. The view finds the 
+	 * first node of the range with a single descent of the tree, and the node 
+	 * after the range with another. Iterating the view then follows the 
+	 * linked list between those nodes, so it costs O(log n + k) without any 
+	 * further comparisons.
+	 */
+	public class SubSet implements Iterable<T>{
+		
+		private T fromElement;
+		private boolean fromInclusive;
+		private T toElement;
+		private boolean toInclusive;
+		
+		private SubSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive){
+			this.fromElement = fromElement;
+			this.fromInclusive = fromInclusive;
+			this.toElement = toElement;
+			this.toInclusive = toInclusive;
+		}
+		
+		/**
+		 * Adds the element to the backing set.
+		 * 
+		 * @throws
+		 * NullPointerException if element is null.
+		 * @throws
+		 * IllegalArgumentException if the element is outside the range.
+		 */
+		public void add(T element){
+			if (!inRange(element)){
+				throw new IllegalArgumentException("Element is out of range.");
+			}
+			MyTreeSet.this.add(element);
+		} // add
+		
+		/**
+		 * Checks if the element is within the range and present in the set.
+		 * 
+		 * @throws
+		 * NullPointerException if element is null.
+		 */
+		public boolean contains(T element){
+			return inRange(element) && MyTreeSet.this.contains(element);
+		} // contains
+		
+		/**
+		 * Removes the element from the backing set if it's within the range.
+		 * 
+		 * @throws
+		 * NullPointerException if element is null.
+		 */
+		public void remove(T element){
+			if (inRange(element)){
+				MyTreeSet.this.remove(element);
+			}
+		} // remove
+		
+		/**
+		 * Returns the number of elements in the range. If the set tracks order
+		 * statistics the elements are counted in O(height), otherwise by 
+		 * walking the range in O(log n + k).
+		 */
+		public int size(){
+			if (orderStatistics){
+				int count = size;
+				if (toElement != null){
+					count = countBelow(toElement, toInclusive);
+				}
+				if (fromElement != null){
+					count -= countBelow(fromElement, !fromInclusive);
+				}
+				return Math.max(count, 0);
+			}
+			
+			int count = 0;
+			Node<T> firstNode = firstNode();
+			Node<T> endNode = endNode(firstNode);
+			for (Node<T> currNode = firstNode; currNode != endNode; currNode = currNode.getNextLargest()){
+				++count;
+			}
+			return count;
+		} // size
+		
+		/**
+		 * Returns the smallest element in the range.
+		 * 
+		 * @throws
+		 * NoSuchElementException if the range is empty.
+		 */
+		public T first(){
+			Node<T> firstNode = firstNode();
+			if (firstNode == endNode(firstNode)){
+				throw new NoSuchElementException();
+			}
+			return firstNode.getValue();
+		} // first
+		
+		/**
+		 * Returns the largest element in the range.
+		 * 
+		 * @throws
+		 * NoSuchElementException if the range is empty.
+		 */
+		public T last(){
+			Node<T> lastNode = endNode().getNextSmallest();
+			if (lastNode == head || !inRange(lastNode.getValue())){
+				throw new NoSuchElementException();
+			}
+			return lastNode.getValue();
+		} // last
+		
+		/**
+		 * Returns an iterator over the elements in the range. The iterator
+		 * behaves as the iterator of the backing set.
+		 */
+		public Iterator<T> iterator(){
+			Node<T> firstNode = firstNode();
+			return new MyTreeSetIterator(firstNode.getNextSmallest(), endNode(firstNode));
+		} // iterator
+		
+		/**
+		 * Returns a string representation of the elements in the range.
+		 */
+		public String toString(){
+			StringBuilder builder = new StringBuilder();
+			
+			Node<T> firstNode = firstNode();
+			Node<T> endNode = endNode(firstNode);
+			for (Node<T> tmpNode = firstNode; tmpNode != endNode; tmpNode = tmpNode.getNextLargest()){
+				if (builder.length() != 0){
+					builder.append( ", " );
+				}
+				builder.append( tmpNode.toString() );
+			}
+			
+			return "[" + builder.toString() + "]";
+		}
+		
+		/**
+		 * Returns the first node within the range, or a node after the range
+		 * if the range is empty.
+		 */
+		private Node<T> firstNode(){
+			if (fromElement == null){
+				return head.getNextLargest();
+			}
+			return ceilingNode(fromElement, fromInclusive);
+		}
+		
+		/**
+		 * Returns the first node after the range. 
+		 */
+		private Node<T> endNode(){
+			if (toElement == null){
+				return tail;
+			}
+			return ceilingNode(toElement, !toInclusive);
+		}
+		
+		/**
+		 * Returns the first node after the range, or the supplied first node 
+		 * if it's already past the range. The latter happens when both bounds 
+		 * are the same element and one of them is exclusive.
+		 */
+		private Node<T> endNode(Node<T> firstNode){
+			if (firstNode == tail || tooHigh(firstNode.getValue())){
+				return firstNode;
+			}
+			return endNode();
+		}
+		
+		private boolean inRange(T element){
+			if (element == null){
+				throw new NullPointerException("Element can't be null.");
+			}
+			return !tooLow(element) && !tooHigh(element);
+		}
+		
+		private boolean tooLow(T element){
+			if (fromElement == null){
+				return false;
+			}
+			int cmp = comparator.compare(element, fromElement);
+			return cmp < 0 || (cmp == 0 && !fromInclusive);
+		}
+		
+		private boolean tooHigh(T element){
+			if (toElement == null){
+				return false;
+			}
+			int cmp = comparator.compare(element, toElement);
+			return cmp > 0 || (cmp == 0 && !toInclusive);
+		}
+		
+	} // SubSet
+	
+	
+	/**
+	 * A view of a MyTreeSet in reverse order. The view doesn't copy any 
+	 * elements. Its iterator walks the linked list from tail through the 
+	 * nextSmallest references, and its queries are answered by the backing 
+	 * set with the directions swapped.
+	 */
+	public class DescendingSet implements Iterable<T>{
+		
+		private DescendingSet(){
+		}
+		
+		/**
+		 * Adds the element to the backing set.
+		 */
+		public void add(T element){
+			MyTreeSet.this.add(element);
+		}
+		
+		/**
+		 * Checks if the element is present in the backing set.
+		 */
+		public boolean contains(T element){
+			return MyTreeSet.this.contains(element);
+		}
+		
+		/**
+		 * Removes the element from the backing set.
+		 */
+		public void remove(T element){
+			MyTreeSet.this.remove(element);
+		}
+		
+		public int size(){
+			return size;
+		}
+		
+		/**
+		 * Returns the first element of the view, which is the largest element
+		 * of the backing set.
+		 * 
+		 * @throws
+		 * NoSuchElementException if the set is empty.
+		 */
+		public T first(){
+			return MyTreeSet.this.last();
+		}
+		
+		/**
+		 * Returns the last element of the view, which is the smallest element
+		 * of the backing set.
+		 * 
+		 * @throws
+		 * NoSuchElementException if the set is empty.
+		 */
+		public T last(){
+			return MyTreeSet.this.first();
+		}
+		
+		/**
+		 * Returns the element that comes at or before the supplied element in
+		 * the view, i.e. the ceiling in the backing set.
+		 */
+		public T floor(T element){
+			return MyTreeSet.this.ceiling(element);
+		}
+		
+		/**
+		 * Returns the element that comes at or after the supplied element in 
+		 * the view, i.e. the floor in the backing set.
+		 */
+		public T ceiling(T element){
+			return MyTreeSet.this.floor(element);
+		}
+		
+		/**
+		 * Returns the element that comes before the supplied element in the 
+		 * view, i.e. the higher element in the backing set.
+		 */
+		public T lower(T element){
+			return MyTreeSet.this.higher(element);
+		}
+		
+		/**
+		 * Returns the element that comes after the supplied element in the 
+		 * view, i.e. the lower element in the backing set.
+		 */
+		public T higher(T element){
+			return MyTreeSet.this.lower(element);
+		}
+		
+		/**
+		 * Returns an iterator from the largest to the smallest element.
+		 */
+		public Iterator<T> iterator(){
+			return MyTreeSet.this.descendingIterator();
+		}
+		
+		/**
+		 * Returns an iterator from the smallest to the largest element, which 
+		 * is the reverse order of the view.
+		 */
+		public Iterator<T> descendingIterator(){
+			return MyTreeSet.this.iterator();
+		}
+		
+		/**
+		 * Returns the backing set, whose order is the reverse of the view.
+		 */
+		public MyTreeSet<T> descendingSet(){
+			return MyTreeSet.this;
+		}
+		
+		/**
+		 * Returns a string representation of the view, from the largest to the
+		 * smallest element.
+		 */
+		public String toString(){
+			StringBuilder builder = new StringBuilder();
+			
+			Node<T> tmpNode = tail.getNextSmallest();
+			while (tmpNode != head){
+				if (builder.length() != 0){
+					builder.append( ", " );
+				}
+				
+				builder.append( tmpNode.toString() );
+				tmpNode = tmpNode.getNextSmallest();
+			}
+			
+			return "[" + builder.toString() + "]";
+		}
+		
+	} // DescendingSet
+	
+	
+	/**
+	 * A finger into a MyTreeSet. The cursor is either at an element, before 
+	 * the smallest element or after the largest one. next and prev step along 
+	 * the linked list in O(1). seek searches from the element the cursor is at
+	 * instead of from the root. It first looks at the neighbour in the linked 
+	 * list, which settles sorted probes in two comparisons. Otherwise it climbs
+	 * from the finger to the lowest ancestor whose subtree must hold the 
+	 * target and descends from there. In an AVL tree that subtree has height 
+	 * O(log d) for a target d elements away, unless the finger and the target
+	 * lie on either side of a node high up in the tree, in which case the 
+	 * seek costs at most about twice a search from the root.
+	 * <p>
+	 * The cursor doesn't change the tree, not even in a splay tree. If the set
+	 * is modified by anyone, the cursor finds its place again by searching 
+	 * from the root for the element it was at, which may since have been 
+	 * removed.
+	 */
+	public class Cursor{
+		
+		private Node<T> finger;
+		private int expectedCount;
+		
+		private Cursor(){
+			finger = head;
+			expectedCount = modCount;
+		}
+		
+		/**
+		 * Moves the cursor to the smallest element that is larger than or equal
+		 * to the supplied element, or after the largest element if there is no
+		 * such element.
+		 * 
+		 * @param element
+		 * - the element to search for.
+		 * @return
+		 * true if the element is present in the set.
+		 * 
+		 * @throws
+		 * NullPointerException if element is null.
+		 */
+		public boolean seek(T element){
+			if (element == null){
+				throw new NullPointerException("Element can't be null.");
+			}
+			
+			if (finger == head || finger == tail || expectedCount != modCount){
+				finger = ceilingIn(root, element);
+				expectedCount = modCount;
+			} else {
+				finger = fingerSearch(element);
+			}
+			return finger != tail && comparator.compare(finger.getValue(), element) == 0;
+		} // seek
+		
+		/**
+		 * Returns the element the cursor is at, or null if the cursor is before
+		 * the smallest or after the largest element.
+		 */
+		public T current(){
+			return finger == head || finger == tail ? null : finger.getValue();
+		} // current
+		
+		/**
+		 * Moves the cursor to the next larger element and returns it.
+		 * 
+		 * @return
+		 * the next element, or null if the cursor has moved past the largest
+		 * element.
+		 */
+		public T next(){
+			if (finger == tail){
+				return null;
+			}
+			if (finger != head && expectedCount != modCount){
+				Node<T> ceiling = ceilingIn(root, finger.getValue());
+				boolean present = ceiling != tail && comparator.compare(ceiling.getValue(), finger.getValue()) == 0;
+				finger = present ? ceiling.getNextLargest() : ceiling;
+			} else {
+				finger = finger.getNextLargest();
+			}
+			expectedCount = modCount;
+			return current();
+		} // next
+		
+		/**
+		 * Moves the cursor to the next smaller element and returns it.
+		 * 
+		 * @return
+		 * the previous element, or null if the cursor has moved before the 
+		 * smallest element.
+		 */
+		public T prev(){
+			if (finger == head){
+				return null;
+			}
+			if (finger != tail && expectedCount != modCount){
+				finger = ceilingIn(root, finger.getValue()).getNextSmallest();
+			} else {
+				finger = finger.getNextSmallest();
+			}
+			expectedCount = modCount;
+			return current();
+		} // prev
+		
+		/**
+		 * Searches from the finger. The neighbour of the finger in the linked 
+		 * list is checked first. Otherwise the search climbs the tree from the
+		 * finger and stops at a node whose parent lies beyond the element, 
+		 * seen from the finger, since the element's place is then inside the 
+		 * node's subtree or at the parent itself. Every node climbed past lies
+		 * between the finger and the element, so the search descends from the
+		 * far child of the node where the climb stopped.
+		 * 
+		 * @return
+		 * the node with the smallest element larger than or equal to element,
+		 * or tail.
+		 */
+		private Node<T> fingerSearch(T element){
+			int cmp = comparator.compare(finger.getValue(), element);
+			if (cmp == 0){
+				return finger;
+			}
+			boolean forward = cmp < 0;
+			
+			Node<T> neighbour = forward ? finger.getNextLargest() : finger.getNextSmallest();
+			if (neighbour == tail || neighbour == head){
+				return forward ? tail : finger;
+			}
+			int neighbourCmp = comparator.compare(neighbour.getValue(), element);
+			if (forward ? neighbourCmp >= 0 : neighbourCmp <= 0){
+				return neighbourCmp >= 0 ? neighbour : finger;
+			}
+			
+			Node<T> subroot = neighbour;
+			while (subroot.getParent() != null){
+				Node<T> parent = subroot.getParent();
+				if ((parent.getLeftChild() == subroot) == forward){
+					int parentCmp = comparator.compare(parent.getValue(), element);
+					if (parentCmp == 0){
+						return parent;
+					}
+					if (forward ? parentCmp > 0 : parentCmp < 0){
+						break;
+					}
+				}
+				subroot = parent;
+			}
+			
+			Node<T> child = forward ? subroot.getRightChild() : subroot.getLeftChild();
+			if (child == null){
+				return forward ? subroot.getNextLargest() : subroot;
+			}
+			return ceilingIn(child, element);
+		} // fingerSearch
+	} // Cursor
+	
 	
 	/**
 	 * Used to iterate over the elements in a MyTreeSet object. 
@@ -543,13 +2318,49 @@ public class MyTreeSet<T extends Comparable<T> > implements Iterable<T>{
 	private class MyTreeSetIterator implements Iterator<T>{
 
 		private Node<T> currentNode;
+		private Node<T> endNode;
+		private boolean ascending;
 		private int expectedCount;
 		private boolean removalValid;
 		
 		public MyTreeSetIterator(){
+			this(head, tail);
+		}
+		
+		/**
+		 * Creates an iterator over the nodes after startNode and before endNode
+		 * in the linked list.
+		 * 
+		 * @param startNode
+		 * - the node before the first node to return.
+		 * @param endNode
+		 * - the node after the last node to return.
+		 */
+		public MyTreeSetIterator(Node<T> startNode, Node<T> endNode){
+			this(startNode, endNode, true);
+		}
+		
+		/**
+		 * Creates an iterator over the nodes between startNode and endNode, 
+		 * which follows the nextLargest references if ascending is true and the
+		 * nextSmallest references otherwise.
+		 * 
+		 * @param startNode
+		 * - the node before the first node to return.
+		 * @param endNode
+		 * - the node after the last node to return.
+		 * @param ascending
+		 * - true to iterate from smaller to larger elements.
+		 */
+		public MyTreeSetIterator(Node<T> startNode, Node<T> endNode, boolean ascending){
+			if (metrics != null){
+				++metrics.iterators;
+			}
 			expectedCount = modCount;
 			removalValid = false;
-			currentNode = head;
+			currentNode = startNode;
+			this.endNode = endNode;
+			this.ascending = ascending;
 		}
 		
 		/**
@@ -557,14 +2368,14 @@ public class MyTreeSet<T extends Comparable<T> > implements Iterable<T>{
 		 * Also returns false if the set is empty. 
 		 * 
 		 * @return
-		 * True if the next node has a value, otherwise false.
+		 * True if the next node is before the end node, otherwise false.
 		 * False if the list is empty.
 		 */
 		public boolean hasNext() {
 			if(size == 0)
 				return false;
 			else
-				return currentNode.getNextLargest().getValue() != null;			
+				return nextNode() != endNode;
 		}//hasNext
 
 
@@ -586,17 +2397,23 @@ public class MyTreeSet<T extends Comparable<T> > implements Iterable<T>{
 			if(expectedCount != modCount)
 				throw new ConcurrentModificationException();
 			removalValid = true;
-			currentNode = currentNode.getNextLargest();
+			currentNode = nextNode();
 			
 			return currentNode.getValue();
 		}//next
+		
+		private Node<T> nextNode(){
+			return ascending ? currentNode.getNextLargest() : currentNode.getNextSmallest();
+		}
 
 		
 		/**
 		 * If the next element has been returned by next() and no modifications has been
 		 * done, other than changes made by the iterator, the element is removed. 
-		 * After setting removalValid to false, forcing a call to next() before removing 
-		 * another element, expectedCount is incremented as is modCount in the list.  
+		 * The iterator holds the node of the element, so the node is unlinked 
+		 * directly through its parent without searching the tree. The removed 
+		 * node keeps its references into the linked list, which makes it possible 
+		 * to reach the next node with a call to next().
 		 * 
 		 * @throws
 		 * IllegalStateException if a call to next() hasn't been done.
@@ -610,12 +2427,12 @@ public class MyTreeSet<T extends Comparable<T> > implements Iterable<T>{
 			if(expectedCount != modCount)
 				throw new ConcurrentModificationException();
 			removalValid = false;
-			++expectedCount;
-			Node<T> temp = currentNode; 
-			MyTreeSet.this.remove(currentNode.getValue()); //The value is removed but the node is kept
-			currentNode = temp;							   //outside the set as a reference, making
-		}//remove										   //it possible to reach the next node if there is one.
-														   //Next node can only be reached by explicitly calling next().
+			if (metrics != null){
+				++metrics.removes;
+			}
+			removeNode(currentNode);
+			expectedCount = modCount;
+		}//remove
 	} // MyTreeSetIterator
 	
 } // MyTreeSet
@@ -0,0 +1,317 @@
+package treeset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+
+/**
+ * Builds MyTreeSet objects from large amounts of unsorted elements using
+ * several threads. The elements are split into chunks that are sorted and
+ * freed of duplicates in parallel. The sorted chunks are then merged pairwise
+ * in linear time. The finished sequence is handed to MyTreeSet.addAll, which
+ * builds a perfectly balanced tree and its linked list in one pass.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class MyTreeSetLoader {
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private MyTreeSetLoader(){
+	}
+
+	/**
+	 * Returns a Collector that gathers the elements of a stream into a
+	 * MyTreeSet ordered by compareTo. Used with a parallel stream, each thread
+	 * sorts its own part of the elements.
+	 */
+	public static <T extends Comparable<T> > Collector<T, ?, MyTreeSet<T> > toMyTreeSet(){
+		return new SortingCollector<T>(null, Balancing.NONE);
+	}
+
+	/**
+	 * Returns a Collector that gathers the elements of a stream into a
+	 * MyTreeSet ordered by compareTo and using the supplied balancing strategy.
+	 *
+	 * @throws
+	 * NullPointerException if balancing is null.
+	 */
+	public static <T extends Comparable<T> > Collector<T, ?, MyTreeSet<T> > toMyTreeSet(Balancing balancing){
+		if (balancing == null){
+			throw new NullPointerException("Balancing can't be null.");
+		}
+		return new SortingCollector<T>(null, balancing);
+	}
+
+	/**
+	 * Returns a Collector that gathers the elements of a stream into a
+	 * MyTreeSet ordered by the comparator and using the supplied balancing
+	 * strategy.
+	 *
+	 * @throws
+	 * NullPointerException if comparator or balancing is null.
+	 */
+	public static <T extends Comparable<T> > Collector<T, ?, MyTreeSet<T> > toMyTreeSet(Comparator<T> comparator, Balancing balancing){
+		if (comparator == null){
+			throw new NullPointerException("Comparator can't be null.");
+		}
+		if (balancing == null){
+			throw new NullPointerException("Balancing can't be null.");
+		}
+		return new SortingCollector<T>(comparator, balancing);
+	}
+
+	/**
+	 * Builds a MyTreeSet ordered by compareTo from the supplied elements. The
+	 * chunks are sorted by the common fork-join pool.
+	 *
+	 * @param elements
+	 * - the elements of the new set, in any order and with any duplicates.
+	 * @param balancing
+	 * - the balancing strategy of the new set.
+	 * @return
+	 * a set with a perfectly balanced tree.
+	 *
+	 * @throws
+	 * NullPointerException if elements, balancing or any of the elements is null.
+	 */
+	public static <T extends Comparable<T> > MyTreeSet<T> load(List<? extends T> elements, Balancing balancing){
+		return sortAndBuild(elements, null, balancing);
+	}
+
+	/**
+	 * Builds a MyTreeSet ordered by the comparator from the supplied elements.
+	 * The chunks are sorted by the common fork-join pool.
+	 *
+	 * @param elements
+	 * - the elements of the new set, in any order and with any duplicates.
+	 * @param comparator
+	 * - the comparator of the new set.
+	 * @param balancing
+	 * - the balancing strategy of the new set.
+	 * @return
+	 * a set with a perfectly balanced tree.
+	 *
+	 * @throws
+	 * NullPointerException if elements, comparator, balancing or any of the
+	 * elements is null.
+	 */
+	public static <T extends Comparable<T> > MyTreeSet<T> load(List<? extends T> elements, Comparator<T> comparator, Balancing balancing){
+		if (comparator == null){
+			throw new NullPointerException("Comparator can't be null.");
+		}
+		return sortAndBuild(elements, comparator, balancing);
+	}
+
+	/**
+	 * Sorts the elements in the common fork-join pool and builds the set.
+	 *
+	 * @param comparator
+	 * - the comparator of the new set, or null for natural ordering.
+	 */
+	private static <T extends Comparable<T> > MyTreeSet<T> sortAndBuild(List<? extends T> elements, Comparator<T> comparator, Balancing balancing){
+		if (elements == null){
+			throw new NullPointerException("Elements can't be null.");
+		}
+		if (balancing == null){
+			throw new NullPointerException("Balancing can't be null.");
+		}
+
+		Comparator<T> order = comparator != null ? comparator : new NaturalOrder<T>();
+		ArrayList<T> sorted = ForkJoinPool.commonPool().invoke(new SortTask<T>(elements, 0, elements.size(), order));
+		return newSet(sorted, comparator, balancing);
+	}
+
+	/**
+	 * Creates the set and builds its tree from the sorted elements.
+	 */
+	private static <T extends Comparable<T> > MyTreeSet<T> newSet(ArrayList<T> sorted, Comparator<T> comparator, Balancing balancing){
+		MyTreeSet<T> set;
+		if (comparator == null){
+			set = new MyTreeSet<T>(balancing);
+		} else {
+			set = new MyTreeSet<T>(comparator, balancing);
+		}
+		set.addAll(sorted);
+		return set;
+	}
+
+	/**
+	 * Sorts the list and removes neighbouring duplicates from it.
+	 *
+	 * @throws
+	 * NullPointerException if any of the elements is null.
+	 */
+	private static <T> void sortAndDeduplicate(ArrayList<T> list, Comparator<T> comparator){
+		for (T element : list){
+			if (element == null){
+				throw new NullPointerException("Element can't be null.");
+			}
+		}
+		Collections.sort(list, comparator);
+
+		int kept = 0;
+		for (int i = 0; i < list.size(); ++i){
+			if (kept == 0 || comparator.compare(list.get(kept - 1), list.get(i)) != 0){
+				list.set(kept++, list.get(i));
+			}
+		}
+		list.subList(kept, list.size()).clear();
+	}
+
+	/**
+	 * Merges two sorted lists without duplicates into one, in linear time.
+	 */
+	private static <T> ArrayList<T> merge(ArrayList<T> first, ArrayList<T> second, Comparator<T> comparator){
+		ArrayList<T> merged = new ArrayList<T>(first.size() + second.size());
+		int i = 0;
+		int j = 0;
+
+		while (i < first.size() && j < second.size()){
+			int cmp = comparator.compare(first.get(i), second.get(j));
+			if (cmp < 0){
+				merged.add(first.get(i++));
+			} else if (cmp > 0){
+				merged.add(second.get(j++));
+			} else {
+				merged.add(first.get(i++));
+				++j;
+			}
+		}
+		merged.addAll(first.subList(i, first.size()));
+		merged.addAll(second.subList(j, second.size()));
+		return merged;
+	}
+
+
+	/**
+	 * Sorts the elements between the indices from, inclusive, and to,
+	 * exclusive. Ranges larger than one chunk are split in two halves that
+	 * are sorted in parallel and then merged.
+	 */
+	private static class SortTask<T> extends RecursiveTask<ArrayList<T> > {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<? extends T> elements;
+		private final int from;
+		private final int to;
+		private final Comparator<T> comparator;
+
+		SortTask(List<? extends T> elements, int from, int to, Comparator<T> comparator){
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+			this.comparator = comparator;
+		}
+
+		protected ArrayList<T> compute(){
+			if (to - from <= CHUNK_SIZE){
+				ArrayList<T> chunk = new ArrayList<T>(elements.subList(from, to));
+				sortAndDeduplicate(chunk, comparator);
+				return chunk;
+			}
+
+			int mid = (from + to) >>> 1;
+			SortTask<T> firstHalf = new SortTask<T>(elements, from, mid, comparator);
+			firstHalf.fork();
+			ArrayList<T> second = new SortTask<T>(elements, mid, to, comparator).compute();
+			return merge(firstHalf.join(), second, comparator);
+		}
+	} // SortTask
+
+
+	/**
+	 * The elements gathered by one thread. They are sorted lazily, when two
+	 * parts are combined or when the set is built.
+	 */
+	private static class Part<T> {
+		ArrayList<T> elements = new ArrayList<T>();
+		boolean sorted = false;
+	} // Part
+
+
+	/**
+	 * Collector that gathers the elements in parts, sorts each part in the
+	 * thread that gathered it and merges the sorted parts in linear time.
+	 */
+	private static class SortingCollector<T extends Comparable<T> > implements Collector<T, Part<T>, MyTreeSet<T> > {
+
+		private final Comparator<T> comparator;
+		private final Comparator<T> order;
+		private final Balancing balancing;
+
+		/**
+		 * @param comparator
+		 * - the comparator of the new set, or null for natural ordering.
+		 */
+		SortingCollector(Comparator<T> comparator, Balancing balancing){
+			this.comparator = comparator;
+			this.order = comparator != null ? comparator : new NaturalOrder<T>();
+			this.balancing = balancing;
+		}
+
+		public Supplier<Part<T> > supplier(){
+			return new Supplier<Part<T> >(){
+				public Part<T> get(){
+					return new Part<T>();
+				}
+			};
+		}
+
+		public BiConsumer<Part<T>, T> accumulator(){
+			return new BiConsumer<Part<T>, T>(){
+				public void accept(Part<T> part, T element){
+					if (element == null){
+						throw new NullPointerException("Element can't be null.");
+					}
+					part.elements.add(element);
+				}
+			};
+		}
+
+		public BinaryOperator<Part<T> > combiner(){
+			return new BinaryOperator<Part<T> >(){
+				public Part<T> apply(Part<T> first, Part<T> second){
+					sort(first);
+					sort(second);
+					first.elements = merge(first.elements, second.elements, order);
+					return first;
+				}
+			};
+		}
+
+		public Function<Part<T>, MyTreeSet<T> > finisher(){
+			return new Function<Part<T>, MyTreeSet<T> >(){
+				public MyTreeSet<T> apply(Part<T> part){
+					sort(part);
+					return newSet(part.elements, comparator, balancing);
+				}
+			};
+		}
+
+		public Set<Characteristics> characteristics(){
+			return EnumSet.of(Characteristics.UNORDERED);
+		}
+
+		private void sort(Part<T> part){
+			if (!part.sorted){
+				sortAndDeduplicate(part.elements, order);
+				part.sorted = true;
+			}
+		}
+	} // SortingCollector
+
+} // MyTreeSetLoader
@@ -0,0 +1,165 @@
+package treeset;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+/**
+ * Counters and shape gauges of one MyTreeSet, which can be published as a JMX
+ * MBean. A set only has metrics after MyTreeSet.enableMetrics has been
+ * called. Until then nothing is counted; the operations only check that the
+ * metrics are absent. Comparisons are counted by a comparator wrapped around
+ * the set's own one, so they cost nothing at all while the metrics are off.
+ * <p>
+ * The counters are plain fields written by the thread that uses the set, just
+ * like the set itself, so reading them from the JMX thread may lag a little.
+ * The height, depth histogram and byte estimate walk the tree when they are
+ * read. If the set is being modified at the same time, the walk may see a
+ * half-done change and return a rough value, or an empty one.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class MyTreeSetMetrics implements MyTreeSetMetricsMBean {
+
+	// Object header plus six references and two ints, with compressed
+	// references on a 64-bit JVM, aligned to eight bytes.
+	private static final long NODE_BYTES = 48;
+	private static final long SET_BYTES = 48;
+
+	private final MyTreeSet<?> set;
+	private ObjectName registeredName;
+
+	long adds;
+	long removes;
+	long contains;
+	long iterators;
+	long comparisons;
+	long operationComparisons;
+
+	MyTreeSetMetrics(MyTreeSet<?> set){
+		this.set = set;
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server, under the name
+	 * treeset:type=MyTreeSet,name=the supplied name.
+	 *
+	 * @param name
+	 * - the name that tells the set apart from other sets.
+	 * @return
+	 * the name of the MBean.
+	 *
+	 * @throws
+	 * JMException if the name is taken or the registration fails.
+	 */
+	public synchronized ObjectName register(String name) throws JMException{
+		if (name == null){
+			throw new NullPointerException("Name can't be null.");
+		}
+		unregister();
+
+		ObjectName objectName = new ObjectName("treeset:type=MyTreeSet,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		registeredName = objectName;
+		return objectName;
+	} // register
+
+	/**
+	 * Removes the metrics from the platform MBean server. Does nothing if
+	 * they aren't registered.
+	 *
+	 * @throws
+	 * JMException if the removal fails.
+	 */
+	public synchronized void unregister() throws JMException{
+		if (registeredName != null){
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(registeredName)){
+				server.unregisterMBean(registeredName);
+			}
+			registeredName = null;
+		}
+	} // unregister
+
+	public long getAddCount(){
+		return adds;
+	}
+
+	public long getRemoveCount(){
+		return removes;
+	}
+
+	public long getContainsCount(){
+		return contains;
+	}
+
+	public long getIteratorCount(){
+		return iterators;
+	}
+
+	public long getComparisonCount(){
+		return comparisons;
+	}
+
+	public double getComparisonsPerOperation(){
+		long operations = adds + removes + contains;
+		return operations == 0 ? 0 : (double) operationComparisons / operations;
+	}
+
+	public int getSize(){
+		return set.size();
+	}
+
+	public int getHeight(){
+		return getDepthHistogram().length;
+	}
+
+	public int[] getDepthHistogram(){
+		try {
+			return set.depthHistogram();
+		} catch (RuntimeException e){
+			// The tree was walked while it was being modified.
+			return new int[0];
+		}
+	}
+
+	public long getEstimatedBytes(){
+		return SET_BYTES + NODE_BYTES * (set.size() + 2);
+	}
+
+	public void reset(){
+		adds = 0;
+		removes = 0;
+		contains = 0;
+		iterators = 0;
+		comparisons = 0;
+		operationComparisons = 0;
+	}
+
+
+	/**
+	 * Comparator installed in the set while the metrics are on. It counts
+	 * every comparison and passes it on to the set's own comparator.
+	 */
+	static final class CountingComparator<T> implements Comparator<T>{
+
+		final Comparator<T> comparator;
+		private final MyTreeSetMetrics metrics;
+
+		CountingComparator(Comparator<T> comparator, MyTreeSetMetrics metrics){
+			this.comparator = comparator;
+			this.metrics = metrics;
+		}
+
+		public int compare(T o1, T o2){
+			++metrics.comparisons;
+			return comparator.compare(o1, o2);
+		}
+	} // CountingComparator
+
+}
@@ -0,0 +1,75 @@
+package treeset;
+
+/**
+ * Management interface of {@link MyTreeSetMetrics}, as published over JMX.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public interface MyTreeSetMetricsMBean {
+
+	/**
+	 * Returns the number of calls to add, including the adds of the range
+	 * views and of MyTreeMap.
+	 */
+	long getAddCount();
+
+	/**
+	 * Returns the number of calls to remove, including removals through
+	 * iterators.
+	 */
+	long getRemoveCount();
+
+	/**
+	 * Returns the number of calls to contains.
+	 */
+	long getContainsCount();
+
+	/**
+	 * Returns the number of iterators created, ascending or descending.
+	 */
+	long getIteratorCount();
+
+	/**
+	 * Returns the number of comparisons between elements, made by any
+	 * operation of the set.
+	 */
+	long getComparisonCount();
+
+	/**
+	 * Returns the comparisons made by add, remove and contains divided by the
+	 * number of those calls, or 0 if there have been none. Comparisons made
+	 * by other operations, such as floor, range views, set operations and
+	 * cursors, are left out. On a healthy tree this stays close to the
+	 * logarithm of the size.
+	 */
+	double getComparisonsPerOperation();
+
+	/**
+	 * Returns the number of elements in the set.
+	 */
+	int getSize();
+
+	/**
+	 * Returns the height of the tree. Takes time proportional to the size.
+	 */
+	int getHeight();
+
+	/**
+	 * Returns the number of nodes at every depth of the tree, starting with
+	 * the root at depth 0. Takes time proportional to the size.
+	 */
+	int[] getDepthHistogram();
+
+	/**
+	 * Returns an estimate of the bytes taken by the nodes of the set, not
+	 * counting the elements themselves.
+	 */
+	long getEstimatedBytes();
+
+	/**
+	 * Sets all the counters to zero.
+	 */
+	void reset();
+
+}
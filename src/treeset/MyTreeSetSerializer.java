@@ -0,0 +1,171 @@
+package treeset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+
+/**
+ * Writes MyTreeSet objects to streams in a compact binary format and reads
+ * them back. The format is a four byte magic number, a version byte, the
+ * number of elements as a varint and then the elements in order, each one
+ * encoded by an ElementCodec relative to the one before it.
+ * <p>
+ * Since the elements come back in order, reading builds a perfectly balanced
+ * tree in one linear pass through MyTreeSet.addAll, instead of adding the
+ * elements one by one. If the set is read with a different ordering than it
+ * was written with, the elements are still added correctly, just more slowly.
+ * <p>
+ * The streams are buffered but never closed. Reading may buffer bytes past
+ * the end of the set, unless the stream is already a BufferedInputStream,
+ * which is read from directly. Pass one to read several sets from the same
+ * stream.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public final class MyTreeSetSerializer {
+
+	private static final int MAGIC = 0x4D545331; // "MTS1"
+	private static final int VERSION = 1;
+
+	private MyTreeSetSerializer(){
+	}
+
+	/**
+	 * Writes the set to the stream.
+	 *
+	 * @param set
+	 * - the set to write.
+	 * @param out
+	 * - the stream to write to.
+	 * @param codec
+	 * - encodes the elements.
+	 *
+	 * @throws
+	 * IOException if writing to the stream fails.
+	 * @throws
+	 * NullPointerException if any of the arguments is null.
+	 */
+	public static <T extends Comparable<T> > void write(MyTreeSet<T> set, OutputStream out, ElementCodec<T> codec) throws IOException{
+		if (set == null || out == null || codec == null){
+			throw new NullPointerException("Arguments can't be null.");
+		}
+
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeByte(VERSION);
+		ElementCodecs.writeVarLong(data, set.size());
+
+		T previous = null;
+		for (T element : set){
+			codec.encode(previous, element, data);
+			previous = element;
+		}
+		data.flush();
+	} // write
+
+	/**
+	 * Writes the set to the channel.
+	 *
+	 * @throws
+	 * IOException if writing to the channel fails.
+	 * @throws
+	 * NullPointerException if any of the arguments is null.
+	 */
+	public static <T extends Comparable<T> > void write(MyTreeSet<T> set, WritableByteChannel channel, ElementCodec<T> codec) throws IOException{
+		if (channel == null){
+			throw new NullPointerException("Arguments can't be null.");
+		}
+		write(set, Channels.newOutputStream(channel), codec);
+	} // write
+
+	/**
+	 * Reads a set from the stream. The elements are ordered by compareTo and
+	 * the set doesn't balance its tree on later additions.
+	 *
+	 * @param in
+	 * - the stream to read from.
+	 * @param codec
+	 * - decodes the elements.
+	 * @return
+	 * the set read, with a perfectly balanced tree.
+	 *
+	 * @throws
+	 * IOException if reading fails or the stream doesn't contain a set.
+	 * @throws
+	 * NullPointerException if any of the arguments is null.
+	 */
+	public static <T extends Comparable<T> > MyTreeSet<T> read(InputStream in, ElementCodec<T> codec) throws IOException{
+		return read(in, codec, new MyTreeSet<T>());
+	} // read
+
+	/**
+	 * Reads a set from the stream into a new set with the supplied comparator
+	 * and balancing strategy.
+	 *
+	 * @throws
+	 * IOException if reading fails or the stream doesn't contain a set.
+	 * @throws
+	 * NullPointerException if any of the arguments is null.
+	 */
+	public static <T extends Comparable<T> > MyTreeSet<T> read(InputStream in, ElementCodec<T> codec, Comparator<T> comparator, Balancing balancing) throws IOException{
+		return read(in, codec, new MyTreeSet<T>(comparator, balancing));
+	} // read
+
+	/**
+	 * Reads a set from the channel. The elements are ordered by compareTo.
+	 *
+	 * @throws
+	 * IOException if reading fails or the channel doesn't contain a set.
+	 * @throws
+	 * NullPointerException if any of the arguments is null.
+	 */
+	public static <T extends Comparable<T> > MyTreeSet<T> read(ReadableByteChannel channel, ElementCodec<T> codec) throws IOException{
+		if (channel == null){
+			throw new NullPointerException("Arguments can't be null.");
+		}
+		return read(Channels.newInputStream(channel), codec);
+	} // read
+
+	/**
+	 * Decodes the elements and adds them to the empty set in one go.
+	 */
+	private static <T extends Comparable<T> > MyTreeSet<T> read(InputStream in, ElementCodec<T> codec, MyTreeSet<T> set) throws IOException{
+		if (in == null || codec == null){
+			throw new NullPointerException("Arguments can't be null.");
+		}
+
+		DataInputStream data = new DataInputStream(in instanceof BufferedInputStream ? in : new BufferedInputStream(in));
+		if (data.readInt() != MAGIC){
+			throw new IOException("Not a serialized MyTreeSet.");
+		}
+		int version = data.readUnsignedByte();
+		if (version != VERSION){
+			throw new IOException("Unsupported version " + version + ".");
+		}
+		long size = ElementCodecs.readVarLong(data);
+		if (size < 0 || size > Integer.MAX_VALUE){
+			throw new IOException("Corrupt size " + size + ".");
+		}
+
+		ArrayList<T> elements = new ArrayList<T>((int) Math.min(size, 1 << 16));
+		T previous = null;
+		for (long i = 0; i < size; ++i){
+			previous = codec.decode(previous, data);
+			elements.add(previous);
+		}
+		set.addAll(elements);
+		return set;
+	} // read
+
+}
@@ -0,0 +1,34 @@
+package treeset;
+
+import java.util.Comparator;
+
+/**
+ * Comparator installed by the sets when no comparator is supplied. Compares 
+ * the elements with their compareTo-method, so that a set only has one path 
+ * for comparisons.
+ *
+ * @param <T>
+ * - the datatype of the elements to compare
+ * 
+ * @author Henrik Järnbrand 
+ * @author Tomas Sandberg 
+ */
+class NaturalOrder<T extends Comparable<T>> implements Comparator<T>{
+	
+	public int compare(T o1, T o2){
+		return o1.compareTo(o2);
+	}
+	
+	/**
+	 * All natural-order comparators order the elements the same way, so they 
+	 * are all equal.
+	 */
+	public boolean equals(Object obj){
+		return obj instanceof NaturalOrder;
+	}
+	
+	public int hashCode(){
+		return NaturalOrder.class.hashCode();
+	}
+	
+} // NaturalOrder
@@ -6,7 +6,9 @@ package treeset;
  * of the generic type T and has two children. The class is also used as
  * node in the double-linked list spanning the tree. The attributes nextSmallest
  * and nextLargest are references to the previous node and the next node in the
- * linked list.
+ * linked list. Every node also knows its parent and the height of the subtree
+ * rooted in it, which MyTreeSet uses when balancing the tree, and the number of
+ * nodes in that subtree, which MyTreeSet uses for order statistics.
  * 
  * @param <T>
  * Generic type argument, represents the value to store in each node. 
@@ -19,6 +21,9 @@ class Node<T> {
 	private T value;
 	private Node<T> leftChild;
 	private Node<T> rightChild;
+	private Node<T> parent;
+	private int height;
+	private int subtreeSize;
 	
 	private Node<T> nextSmallest;
 	private Node<T> nextLargest;
@@ -26,6 +31,8 @@ class Node<T> {
 	
 	Node(T value){
 		this.value = value;
+		this.height = 1;
+		this.subtreeSize = 1;
 	}
 	
 	void setValue(T value){
@@ -40,16 +47,67 @@ class Node<T> {
 		return leftChild;
 	}
 	
+	/**
+	 * Sets the left child of the node. The parent of the new child, if any, 
+	 * is set to this node.
+	 */
 	void setLeftChild(Node<T> leftChild){
 		this.leftChild = leftChild;
+		if (leftChild != null){
+			leftChild.parent = this;
+		}
 	}
 	
 	Node<T> getRightChild(){
 		return rightChild;
 	}
 	
+	/**
+	 * Sets the right child of the node. The parent of the new child, if any, 
+	 * is set to this node.
+	 */
 	void setRightChild(Node<T> rightChild){
 		this.rightChild = rightChild;
+		if (rightChild != null){
+			rightChild.parent = this;
+		}
+	}
+	
+	Node<T> getParent(){
+		return parent;
+	}
+	
+	void setParent(Node<T> parent){
+		this.parent = parent;
+	}
+	
+	/**
+	 * Gets the height of the subtree rooted in this node. A node without 
+	 * children has height 1. 
+	 * @return
+	 * - the height of the subtree
+	 */
+	int getHeight(){
+		return height;
+	}
+	
+	void setHeight(int height){
+		this.height = height;
+	}
+	
+	/**
+	 * Gets the number of nodes in the subtree rooted in this node, the node 
+	 * itself included. Only kept up to date by sets that track order 
+	 * statistics.
+	 * @return
+	 * - the size of the subtree
+	 */
+	int getSubtreeSize(){
+		return subtreeSize;
+	}
+	
+	void setSubtreeSize(int subtreeSize){
+		this.subtreeSize = subtreeSize;
 	}
 	
 	/**
@@ -0,0 +1,668 @@
+package treeset;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Set of elements kept in order, either by the natural order of the elements
+ * or by the supplied comparator, which can hand out immutable snapshots of
+ * itself in constant time. The set does not contain any duplicates or nulls.
+ * <p>
+ * The set is an AVL tree whose nodes are never modified. Adding or removing
+ * an element copies the nodes on the path from the root down to the change
+ * and shares every other subtree with the previous version. A snapshot just
+ * keeps the root of the current version, so it can be searched and iterated
+ * from any thread without locks while the set keeps changing. A new version
+ * is published with compareAndSet on the root, so writers don't lock either.
+ * <p>
+ * Unlike MyTreeSet the nodes have no parent references or linked list, since
+ * those can't be shared between versions. Iterators walk the tree with a
+ * stack instead.
+ *
+ * @author Henrik Järnbrand
+ * @author Tomas Sandberg
+ */
+public class PersistentTreeSet<T extends Comparable<T> > implements Iterable<T>{
+
+	private final AtomicReference<PathNode<T> > root;
+	private final Comparator<T> comparator;
+
+	/**
+	 * Creates an empty PersistentTreeSet object. Any comparisons between
+	 * elements will be done with compareTo.
+	 */
+	public PersistentTreeSet(){
+		this(new NaturalOrder<T>());
+	}
+
+	/**
+	 * Creates an empty PersistentTreeSet object and installs the supplied
+	 * comparator. Any comparisons between elements will be done with the
+	 * comparator.
+	 *
+	 * @param comparator
+	 * - the comparator that is to be used to compare elements in the set.
+	 *
+	 * @throws
+	 * NullPointerException if comparator is null.
+	 */
+	public PersistentTreeSet(Comparator<T> comparator){
+		if (comparator == null){
+			throw new NullPointerException("Comparator can't be null.");
+		}
+		this.comparator = comparator;
+		root = new AtomicReference<PathNode<T> >(null);
+	}
+
+	/**
+	 * Adds one element to the set. Does nothing if the set already contains
+	 * the element.
+	 *
+	 * @param element
+	 * - the element to add to the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void add(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		PathNode<T> oldRoot;
+		PathNode<T> newRoot;
+		do {
+			oldRoot = root.get();
+			newRoot = insert(oldRoot, element);
+			if (newRoot == oldRoot){
+				return;
+			}
+		} while (!root.compareAndSet(oldRoot, newRoot));
+	} // add
+
+	/**
+	 * Removes the specified element from the set. Does nothing if the set
+	 * doesn't contain the element.
+	 *
+	 * @param element
+	 * - the element to remove from the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public void remove(T element){
+		if (element == null){
+			throw new NullPointerException("Element can't be null.");
+		}
+
+		PathNode<T> oldRoot;
+		PathNode<T> newRoot;
+		do {
+			oldRoot = root.get();
+			newRoot = delete(oldRoot, element);
+			if (newRoot == oldRoot){
+				return;
+			}
+		} while (!root.compareAndSet(oldRoot, newRoot));
+	} // remove
+
+	/**
+	 * Returns an immutable view of the set as it is now. The call takes
+	 * constant time and later modifications of the set are not visible in
+	 * the snapshot.
+	 */
+	public Snapshot snapshot(){
+		return new Snapshot(root.get());
+	} // snapshot
+
+	/**
+	 * Checks if the element is present in the set.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public boolean contains(T element){
+		return snapshot().contains(element);
+	} // contains
+
+	/**
+	 * Returns the smallest element in the set.
+	 *
+	 * @throws
+	 * NoSuchElementException if the set is empty.
+	 */
+	public T first(){
+		return snapshot().first();
+	} // first
+
+	/**
+	 * Returns the largest element in the set.
+	 *
+	 * @throws
+	 * NoSuchElementException if the set is empty.
+	 */
+	public T last(){
+		return snapshot().last();
+	} // last
+
+	/**
+	 * Returns the largest element in the set that is smaller than or equal to
+	 * the supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T floor(T element){
+		return snapshot().floor(element);
+	} // floor
+
+	/**
+	 * Returns the smallest element in the set that is larger than or equal to
+	 * the supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T ceiling(T element){
+		return snapshot().ceiling(element);
+	} // ceiling
+
+	/**
+	 * Returns the largest element in the set that is strictly smaller than the
+	 * supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T lower(T element){
+		return snapshot().lower(element);
+	} // lower
+
+	/**
+	 * Returns the smallest element in the set that is strictly larger than the
+	 * supplied element, or null if there is no such element.
+	 *
+	 * @throws
+	 * NullPointerException if element is null.
+	 */
+	public T higher(T element){
+		return snapshot().higher(element);
+	} // higher
+
+	/**
+	 * Returns the size of the set, i.e. the number of elements in the set.
+	 */
+	public int size(){
+		return size(root.get());
+	} // size
+
+	/**
+	 * Returns a string representation of the set.
+	 */
+	public String toString(){
+		return snapshot().toString();
+	}
+
+	/**
+	 * Returns an iterator over the elements of the set as it is now. The
+	 * iterator never throws ConcurrentModificationException. Its remove
+	 * method removes the element from the set, not from the version being
+	 * iterated.
+	 */
+	public Iterator<T> iterator(){
+		return new PathIterator(root.get(), null, false, null, false, true);
+	} // iterator
+
+	/**
+	 * Returns the root of a copy of the subtree with the element added, or
+	 * the subtree itself if it already contains the element.
+	 */
+	private PathNode<T> insert(PathNode<T> subroot, T element){
+		if (subroot == null){
+			return new PathNode<T>(element, null, null);
+		}
+
+		int cmp = comparator.compare(subroot.value, element);
+		if (cmp > 0){
+			PathNode<T> left = insert(subroot.left, element);
+			return left == subroot.left ? subroot : balance(subroot.value, left, subroot.right);
+		} else if (cmp < 0){
+			PathNode<T> right = insert(subroot.right, element);
+			return right == subroot.right ? subroot : balance(subroot.value, subroot.left, right);
+		}
+		return subroot;
+	} // insert
+
+	/**
+	 * Returns the root of a copy of the subtree with the element removed, or
+	 * the subtree itself if it doesn't contain the element. A node with two
+	 * children is replaced by a copy of its next largest neighbour.
+	 */
+	private PathNode<T> delete(PathNode<T> subroot, T element){
+		if (subroot == null){
+			return null;
+		}
+
+		int cmp = comparator.compare(subroot.value, element);
+		if (cmp > 0){
+			PathNode<T> left = delete(subroot.left, element);
+			return left == subroot.left ? subroot : balance(subroot.value, left, subroot.right);
+		} else if (cmp < 0){
+			PathNode<T> right = delete(subroot.right, element);
+			return right == subroot.right ? subroot : balance(subroot.value, subroot.left, right);
+		}
+
+		if (subroot.left == null){
+			return subroot.right;
+		}
+		if (subroot.right == null){
+			return subroot.left;
+		}
+		PathNode<T> successor = subroot.right;
+		while (successor.left != null){
+			successor = successor.left;
+		}
+		return balance(successor.value, subroot.left, deleteFirst(subroot.right));
+	} // delete
+
+	private PathNode<T> deleteFirst(PathNode<T> subroot){
+		if (subroot.left == null){
+			return subroot.right;
+		}
+		return balance(subroot.value, deleteFirst(subroot.left), subroot.right);
+	}
+
+	/**
+	 * Creates a node from the value and the two subtrees, rotating if the
+	 * heights of the subtrees differ by more than one.
+	 *
+	 * @return
+	 * the root of the new subtree.
+	 */
+	private static <T> PathNode<T> balance(T value, PathNode<T> left, PathNode<T> right){
+		int balance = height(left) - height(right);
+
+		if (balance > 1){
+			if (height(left.left) < height(left.right)){
+				PathNode<T> pivot = left.right;
+				return new PathNode<T>(pivot.value,
+						new PathNode<T>(left.value, left.left, pivot.left),
+						new PathNode<T>(value, pivot.right, right));
+			}
+			return new PathNode<T>(left.value, left.left, new PathNode<T>(value, left.right, right));
+
+		} else if (balance < -1){
+			if (height(right.right) < height(right.left)){
+				PathNode<T> pivot = right.left;
+				return new PathNode<T>(pivot.value,
+						new PathNode<T>(value, left, pivot.left),
+						new PathNode<T>(right.value, pivot.right, right.right));
+			}
+			return new PathNode<T>(right.value, new PathNode<T>(value, left, right.left), right.right);
+		}
+
+		return new PathNode<T>(value, left, right);
+	} // balance
+
+	private static int height(PathNode<?> subroot){
+		return subroot == null ? 0 : subroot.height;
+	}
+
+	private static int size(PathNode<?> subroot){
+		return subroot == null ? 0 : subroot.size;
+	}
+
+
+	/**
+	 * Immutable node. Besides the height used when balancing, it knows the
+	 * size of its subtree, which makes counting the elements in a range cheap.
+	 */
+	private static final class PathNode<T> {
+
+		final T value;
+		final PathNode<T> left;
+		final PathNode<T> right;
+		final int height;
+		final int size;
+
+		PathNode(T value, PathNode<T> left, PathNode<T> right){
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			this.height = 1 + Math.max(PersistentTreeSet.height(left), PersistentTreeSet.height(right));
+			this.size = 1 + PersistentTreeSet.size(left) + PersistentTreeSet.size(right);
+		}
+	} // PathNode
+
+
+	/**
+	 * Immutable view of one version of the set. It may be shared between
+	 * threads freely.
+	 */
+	public class Snapshot implements Iterable<T>{
+
+		private final PathNode<T> root;
+
+		private Snapshot(PathNode<T> root){
+			this.root = root;
+		}
+
+		/**
+		 * Checks if the element is present in the snapshot.
+		 *
+		 * @throws
+		 * NullPointerException if element is null.
+		 */
+		public boolean contains(T element){
+			if (element == null){
+				throw new NullPointerException("Element can't be null.");
+			}
+
+			PathNode<T> currNode = root;
+			while (currNode != null){
+				int cmp = comparator.compare(currNode.value, element);
+				if (cmp > 0){
+					currNode = currNode.left;
+				} else if (cmp < 0){
+					currNode = currNode.right;
+				} else {
+					return true;
+				}
+			}
+			return false;
+		} // contains
+
+		/**
+		 * Returns the smallest element in the snapshot.
+		 *
+		 * @throws
+		 * NoSuchElementException if the snapshot is empty.
+		 */
+		public T first(){
+			if (root == null){
+				throw new NoSuchElementException();
+			}
+			PathNode<T> currNode = root;
+			while (currNode.left != null){
+				currNode = currNode.left;
+			}
+			return currNode.value;
+		} // first
+
+		/**
+		 * Returns the largest element in the snapshot.
+		 *
+		 * @throws
+		 * NoSuchElementException if the snapshot is empty.
+		 */
+		public T last(){
+			if (root == null){
+				throw new NoSuchElementException();
+			}
+			PathNode<T> currNode = root;
+			while (currNode.right != null){
+				currNode = currNode.right;
+			}
+			return currNode.value;
+		} // last
+
+		/**
+		 * Returns the largest element that is smaller than or equal to the
+		 * supplied element, or null if there is no such element.
+		 *
+		 * @throws
+		 * NullPointerException if element is null.
+		 */
+		public T floor(T element){
+			return below(element, true);
+		} // floor
+
+		/**
+		 * Returns the smallest element that is larger than or equal to the
+		 * supplied element, or null if there is no such element.
+		 *
+		 * @throws
+		 * NullPointerException if element is null.
+		 */
+		public T ceiling(T element){
+			return above(element, true);
+		} // ceiling
+
+		/**
+		 * Returns the largest element that is strictly smaller than the
+		 * supplied element, or null if there is no such element.
+		 *
+		 * @throws
+		 * NullPointerException if element is null.
+		 */
+		public T lower(T element){
+			return below(element, false);
+		} // lower
+
+		/**
+		 * Returns the smallest element that is strictly larger than the
+		 * supplied element, or null if there is no such element.
+		 *
+		 * @throws
+		 * NullPointerException if element is null.
+		 */
+		public T higher(T element){
+			return above(element, false);
+		} // higher
+
+		/**
+		 * Returns the number of elements in the snapshot.
+		 */
+		public int size(){
+			return PersistentTreeSet.size(root);
+		} // size
+
+		/**
+		 * Returns the number of elements in the range between fromElement and
+		 * toElement. The count takes time proportional to the height of the
+		 * tree.
+		 *
+		 * @throws
+		 * NullPointerException if fromElement or toElement is null.
+		 */
+		public int countInRange(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive){
+			int count = countBelow(toElement, toInclusive) - countBelow(fromElement, !fromInclusive);
+			return Math.max(count, 0);
+		} // countInRange
+
+		/**
+		 * Returns an iterator over the elements in order.
+		 */
+		public Iterator<T> iterator(){
+			return new PathIterator(root, null, false, null, false, false);
+		} // iterator
+
+		/**
+		 * Returns an iterator over the elements in order that lie in the range
+		 * between fromElement and toElement.
+		 *
+		 * @throws
+		 * NullPointerException if fromElement or toElement is null.
+		 */
+		public Iterator<T> iterator(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive){
+			if (fromElement == null || toElement == null){
+				throw new NullPointerException("Element can't be null.");
+			}
+			return new PathIterator(root, fromElement, fromInclusive, toElement, toInclusive, false);
+		} // iterator
+
+		/**
+		 * Returns a string representation of the snapshot.
+		 */
+		public String toString(){
+			StringBuilder builder = new StringBuilder("[");
+
+			for (T element : this){
+				if (builder.length() != 1){
+					builder.append( ", " );
+				}
+				builder.append( element );
+			}
+
+			return builder.append("]").toString();
+		}
+
+		private T below(T element, boolean inclusive){
+			if (element == null){
+				throw new NullPointerException("Element can't be null.");
+			}
+
+			T found = null;
+			PathNode<T> currNode = root;
+			while (currNode != null){
+				int cmp = comparator.compare(currNode.value, element);
+				if (cmp < 0 || inclusive && cmp == 0){
+					found = currNode.value;
+					currNode = currNode.right;
+				} else {
+					currNode = currNode.left;
+				}
+			}
+			return found;
+		}
+
+		private T above(T element, boolean inclusive){
+			if (element == null){
+				throw new NullPointerException("Element can't be null.");
+			}
+
+			T found = null;
+			PathNode<T> currNode = root;
+			while (currNode != null){
+				int cmp = comparator.compare(currNode.value, element);
+				if (cmp > 0 || inclusive && cmp == 0){
+					found = currNode.value;
+					currNode = currNode.left;
+				} else {
+					currNode = currNode.right;
+				}
+			}
+			return found;
+		}
+
+		/**
+		 * Returns the number of elements smaller than, or if inclusive is true
+		 * smaller than or equal to, the supplied element.
+		 */
+		private int countBelow(T element, boolean inclusive){
+			if (element == null){
+				throw new NullPointerException("Element can't be null.");
+			}
+
+			int count = 0;
+			PathNode<T> currNode = root;
+			while (currNode != null){
+				int cmp = comparator.compare(currNode.value, element);
+				if (cmp < 0 || inclusive && cmp == 0){
+					count += PersistentTreeSet.size(currNode.left) + 1;
+					currNode = currNode.right;
+				} else {
+					currNode = currNode.left;
+				}
+			}
+			return count;
+		}
+	} // Snapshot
+
+
+	/**
+	 * Iterates over one version of the set, keeping the path to the next node
+	 * on a stack. The optional bounds limit the iteration to a range.
+	 */
+	private class PathIterator implements Iterator<T>{
+
+		private final ArrayDeque<PathNode<T> > stack;
+		private final T toElement;
+		private final boolean toInclusive;
+		private final boolean removable;
+		private T lastReturned;
+		private boolean removalValid;
+
+		/**
+		 * @param fromElement
+		 * - the lower bound, or null to start at the smallest element.
+		 * @param toElement
+		 * - the upper bound, or null to end at the largest element.
+		 * @param removable
+		 * - true if remove should remove the element from the set.
+		 */
+		public PathIterator(PathNode<T> root, T fromElement, boolean fromInclusive, T toElement, boolean toInclusive, boolean removable){
+			stack = new ArrayDeque<PathNode<T> >();
+			this.toElement = toElement;
+			this.toInclusive = toInclusive;
+			this.removable = removable;
+			removalValid = false;
+
+			// Push the path to the first node in range, skipping the nodes
+			// before fromElement together with their left subtrees.
+			PathNode<T> currNode = root;
+			while (currNode != null){
+				int cmp = fromElement == null ? 1 : comparator.compare(currNode.value, fromElement);
+				if (cmp > 0 || fromInclusive && cmp == 0){
+					stack.push(currNode);
+					currNode = currNode.left;
+				} else {
+					currNode = currNode.right;
+				}
+			}
+		}
+
+		public boolean hasNext(){
+			if (stack.isEmpty()){
+				return false;
+			}
+			if (toElement == null){
+				return true;
+			}
+			int cmp = comparator.compare(stack.peek().value, toElement);
+			return cmp < 0 || toInclusive && cmp == 0;
+		}
+
+		/**
+		 * Returns the next element.
+		 *
+		 * @throws
+		 * NoSuchElementException if there are no more elements.
+		 */
+		public T next(){
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			PathNode<T> currNode = stack.pop();
+			for (PathNode<T> child = currNode.right; child != null; child = child.left){
+				stack.push(child);
+			}
+
+			removalValid = true;
+			lastReturned = currNode.value;
+			return lastReturned;
+		}
+
+		/**
+		 * Removes the element last returned by next from the set.
+		 *
+		 * @throws
+		 * UnsupportedOperationException if the iterator belongs to a snapshot.
+		 * @throws
+		 * IllegalStateException if a call to next() hasn't been done.
+		 */
+		public void remove(){
+			if (!removable)
+				throw new UnsupportedOperationException("Snapshots can't be modified.");
+			if (!removalValid)
+				throw new IllegalStateException();
+			removalValid = false;
+			PersistentTreeSet.this.remove(lastReturned);
+		}
+	} // PathIterator
+
+} // PersistentTreeSet
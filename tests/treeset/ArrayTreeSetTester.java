@@ -0,0 +1,143 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.Iterator;
+
+public class ArrayTreeSetTester {
+
+	ArrayTreeSet<Integer> arrayTree = new ArrayTreeSet<Integer>();
+	
+	@Test(expected=NullPointerException.class)
+	public void testAddNull() {
+		arrayTree.add(null);
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testComparatorNullReference(){
+		Comparator<Integer> comp = null;
+		new ArrayTreeSet<Integer>(comp);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testSplayNotSupported(){
+		new ArrayTreeSet<Integer>(Balancing.SPLAY);
+	}
+	
+	@Test
+	public void testAddContainsAndRemove(){
+		assertFalse(arrayTree.contains(5));
+		arrayTree.add(5);
+		arrayTree.add(5);
+		assertTrue(arrayTree.contains(5));
+		assertEquals(1, arrayTree.size());
+		arrayTree.remove(5);
+		assertFalse(arrayTree.contains(5));
+		assertEquals(0, arrayTree.size());
+		assertEquals("[]", arrayTree.toString());
+	}
+	
+	@Test
+	public void testAddAndRemoveRandomElements(){
+		Random rnd = new Random();
+		for (Balancing balancing : new Balancing[] {Balancing.NONE, Balancing.AVL}){
+			ArrayTreeSet<Integer> tree = new ArrayTreeSet<Integer>(balancing);
+			ArrayTreeSet<Integer> compTree = new ArrayTreeSet<Integer>(new IntegerComparator(), balancing);
+			TreeSet<Integer> oracle = new TreeSet<Integer>();
+			TreeSet<Integer> compOracle = new TreeSet<Integer>(new IntegerComparator());
+			
+			for (int i=0; i < 20000; ++i){
+				Integer val = rnd.nextInt(2000);
+				if (rnd.nextBoolean()){
+					tree.add(val);
+					oracle.add(val);
+					compTree.add(val);
+					compOracle.add(val);
+				} else {
+					tree.remove(val);
+					oracle.remove(val);
+					compTree.remove(val);
+					compOracle.remove(val);
+				}
+				assertEquals(oracle.contains(val), tree.contains(val));
+				assertEquals(compOracle.contains(val), compTree.contains(val));
+				assertEquals(oracle.size(), tree.size());
+				assertEquals(compOracle.size(), compTree.size());
+			}
+			assertEquals(oracle.toString(), tree.toString());
+			assertEquals(compOracle.toString(), compTree.toString());
+		}
+	}
+	
+	@Test
+	public void testBalancedSortedInput(){
+		ArrayTreeSet<Integer> tree = new ArrayTreeSet<Integer>(Balancing.AVL);
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		
+		for (int i=0; i < 100000; ++i){
+			tree.add(i);
+			oracle.add(i);
+		}
+		for (int i=0; i < 100000; i += 2){
+			tree.remove(i);
+			oracle.remove(i);
+		}
+		for (int i=0; i < 100000; ++i){
+			assertEquals(oracle.contains(i), tree.contains(i));
+		}
+		assertEquals(oracle.size(), tree.size());
+		assertEquals(oracle.toString(), tree.toString());
+	}
+	
+	@Test
+	public void testIteratorRemove(){
+		Random rnd = new Random();
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		for (int i=0; i < 1000; ++i){
+			Integer val = rnd.nextInt(5000);
+			arrayTree.add(val);
+			oracle.add(val);
+		}
+		
+		Iterator<Integer> iter = arrayTree.iterator();
+		Iterator<Integer> oracleIter = oracle.iterator();
+		while (iter.hasNext()){
+			Integer val = iter.next();
+			assertEquals(oracleIter.next(), val);
+			if (rnd.nextBoolean()){
+				iter.remove();
+				oracleIter.remove();
+			}
+		}
+		assertFalse(oracleIter.hasNext());
+		assertEquals(oracle.size(), arrayTree.size());
+		assertEquals(oracle.toString(), arrayTree.toString());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testIteratorRemoveWithoutCallingNext(){
+		arrayTree.add(5);
+		arrayTree.iterator().remove();
+	}
+	
+	@Test(expected=NoSuchElementException.class)
+	public void testIteratorNoSuchElementException(){
+		arrayTree.iterator().next();
+	}
+	
+	@Test(expected=ConcurrentModificationException.class)
+	public void testIteratorConcurrentException(){
+		arrayTree.add(1);
+		Iterator<Integer> iter = arrayTree.iterator();
+		arrayTree.add(2);
+		iter.next();
+	}
+	
+}
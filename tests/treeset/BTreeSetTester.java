@@ -0,0 +1,154 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.Iterator;
+
+public class BTreeSetTester {
+
+	BTreeSet<Integer> bTree = new BTreeSet<Integer>(4);
+	
+	@Test(expected=NullPointerException.class)
+	public void testAddNull() {
+		bTree.add(null);
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testComparatorNullReference(){
+		Comparator<Integer> comp = null;
+		new BTreeSet<Integer>(comp);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooSmallNodeCapacity(){
+		new BTreeSet<Integer>(3);
+	}
+	
+	@Test
+	public void testAddContainsAndRemove(){
+		assertFalse(bTree.contains(5));
+		bTree.add(5);
+		bTree.add(5);
+		assertTrue(bTree.contains(5));
+		assertEquals(1, bTree.size());
+		bTree.remove(5);
+		assertFalse(bTree.contains(5));
+		assertEquals(0, bTree.size());
+		assertEquals("[]", bTree.toString());
+	}
+	
+	@Test
+	public void testAddAndRemoveRandomElements(){
+		Random rnd = new Random();
+		int[] capacities = {4, 5, 64};
+		for (int capacity : capacities){
+			BTreeSet<Integer> tree = new BTreeSet<Integer>(capacity);
+			BTreeSet<Integer> compTree = new BTreeSet<Integer>(new IntegerComparator(), capacity);
+			TreeSet<Integer> oracle = new TreeSet<Integer>();
+			TreeSet<Integer> compOracle = new TreeSet<Integer>(new IntegerComparator());
+			
+			for (int i=0; i < 30000; ++i){
+				Integer val = rnd.nextInt(3000);
+				if (rnd.nextBoolean()){
+					tree.add(val);
+					oracle.add(val);
+					compTree.add(val);
+					compOracle.add(val);
+				} else {
+					tree.remove(val);
+					oracle.remove(val);
+					compTree.remove(val);
+					compOracle.remove(val);
+				}
+				assertEquals(oracle.contains(val), tree.contains(val));
+				assertEquals(compOracle.contains(val), compTree.contains(val));
+				assertEquals(oracle.size(), tree.size());
+				assertEquals(compOracle.size(), compTree.size());
+			}
+			assertEquals(oracle.toString(), tree.toString());
+			assertEquals(compOracle.toString(), compTree.toString());
+		}
+	}
+	
+	@Test
+	public void testAddAndRemoveSortedElements(){
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		
+		for (int i=0; i < 100000; ++i){
+			bTree.add(i);
+			oracle.add(i);
+		}
+		assertEquals(oracle.toString(), bTree.toString());
+		
+		for (int i=99999; i >= 0; --i){
+			if (i % 7 != 0){
+				bTree.remove(i);
+				oracle.remove(i);
+			}
+		}
+		for (int i=0; i < 100000; ++i){
+			assertEquals(oracle.contains(i), bTree.contains(i));
+		}
+		assertEquals(oracle.size(), bTree.size());
+		assertEquals(oracle.toString(), bTree.toString());
+	}
+	
+	@Test
+	public void testIteratorRemove(){
+		Random rnd = new Random();
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		for (int i=0; i < 2000; ++i){
+			Integer val = rnd.nextInt(5000);
+			bTree.add(val);
+			oracle.add(val);
+		}
+		
+		Iterator<Integer> iter = bTree.iterator();
+		Iterator<Integer> oracleIter = oracle.iterator();
+		while (iter.hasNext()){
+			Integer val = iter.next();
+			assertEquals(oracleIter.next(), val);
+			if (rnd.nextBoolean()){
+				iter.remove();
+				oracleIter.remove();
+			}
+		}
+		assertFalse(oracleIter.hasNext());
+		assertEquals(oracle.size(), bTree.size());
+		assertEquals(oracle.toString(), bTree.toString());
+		
+		iter = bTree.iterator();
+		while (iter.hasNext()){
+			iter.next();
+			iter.remove();
+		}
+		assertEquals(0, bTree.size());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testIteratorRemoveWithoutCallingNext(){
+		bTree.add(5);
+		bTree.iterator().remove();
+	}
+	
+	@Test(expected=NoSuchElementException.class)
+	public void testIteratorNoSuchElementException(){
+		bTree.iterator().next();
+	}
+	
+	@Test(expected=ConcurrentModificationException.class)
+	public void testIteratorConcurrentException(){
+		bTree.add(1);
+		Iterator<Integer> iter = bTree.iterator();
+		bTree.add(2);
+		iter.next();
+	}
+	
+}
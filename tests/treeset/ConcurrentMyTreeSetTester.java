@@ -0,0 +1,169 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcurrentMyTreeSetTester {
+
+	private ConcurrentMyTreeSet<Integer> myTree;
+	
+	@Before
+	public void setUp(){
+		myTree = new ConcurrentMyTreeSet<Integer>();
+	}
+	
+	@Test
+	public void testSingleThreaded(){
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		Random rnd = new Random();
+		for (int i=0; i < 5000; ++i){
+			int value = rnd.nextInt(2000);
+			if (rnd.nextBoolean()){
+				myTree.add(value);
+				oracle.add(value);
+			} else {
+				myTree.remove(value);
+				oracle.remove(value);
+			}
+		}
+		
+		assertEquals(oracle.size(), myTree.size());
+		assertEquals(oracle.toString(), myTree.toString());
+		assertEquals(oracle.first(), myTree.first());
+		assertEquals(oracle.last(), myTree.last());
+		for (int i=-1; i <= 2000; ++i){
+			assertEquals(oracle.contains(i), myTree.contains(i));
+			assertEquals(oracle.floor(i), myTree.floor(i));
+			assertEquals(oracle.ceiling(i), myTree.ceiling(i));
+			assertEquals(oracle.lower(i), myTree.lower(i));
+			assertEquals(oracle.higher(i), myTree.higher(i));
+		}
+	}
+	
+	@Test(expected=NoSuchElementException.class)
+	public void testFirstOfEmptySet(){
+		myTree.first();
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testContainsNull(){
+		myTree.contains(null);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testSplayRejected(){
+		new ConcurrentMyTreeSet<Integer>(Balancing.SPLAY);
+	}
+	
+	@Test
+	public void testComparator(){
+		ConcurrentMyTreeSet<Integer> tree = new ConcurrentMyTreeSet<Integer>(new IntegerComparator());
+		for (int i=0; i < 10; ++i){
+			tree.add(i);
+		}
+		assertEquals("[9, 8, 7, 6, 5, 4, 3, 2, 1, 0]", tree.toString());
+		assertEquals(Integer.valueOf(4), tree.higher(5));
+	}
+	
+	@Test
+	public void testIteratorIsWeaklyConsistent(){
+		for (int i=0; i < 1000; ++i){
+			myTree.add(2 * i);
+		}
+		
+		int previous = -1;
+		int returned = 0;
+		Iterator<Integer> iter = myTree.iterator();
+		while (iter.hasNext()){
+			int value = iter.next();
+			assertTrue(previous < value);
+			previous = value;
+			++returned;
+			
+			// Modifications during the iteration never throw.
+			myTree.add(value + 1);
+			myTree.remove(value + 1000);
+			iter.remove();
+		}
+		assertTrue(returned > 500);
+		assertFalse(myTree.contains(0));
+		assertTrue(myTree.contains(1));
+	}
+	
+	@Test
+	public void testConcurrentReadersAndWriters() throws InterruptedException{
+		final int range = 10000;
+		for (int i=0; i < range; i += 2){
+			myTree.add(i);
+		}
+		
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		
+		// The even elements are never touched by the writer.
+		for (int t=0; t < 4; ++t){
+			threads.add(new Thread(new Runnable(){
+				public void run(){
+					try {
+						Random rnd = new Random();
+						for (int i=0; i < 200000; ++i){
+							int value = 2 * rnd.nextInt(range / 2);
+							if (!myTree.contains(value)){
+								throw new AssertionError("Missing " + value);
+							}
+							Integer floor = myTree.floor(value + 1);
+							if (floor == null || floor < value){
+								throw new AssertionError("Wrong floor " + floor + " of " + (value + 1));
+							}
+						}
+						
+						Integer previous = null;
+						for (Integer value : myTree){
+							if (previous != null && previous >= value){
+								throw new AssertionError("Out of order " + previous + ", " + value);
+							}
+							previous = value;
+						}
+					} catch (Throwable e){
+						failure.compareAndSet(null, e);
+					}
+				}
+			}));
+		}
+		threads.add(new Thread(new Runnable(){
+			public void run(){
+				Random rnd = new Random();
+				for (int i=0; i < 200000; ++i){
+					int value = 2 * rnd.nextInt(range / 2) + 1;
+					if (rnd.nextBoolean()){
+						myTree.add(value);
+					} else {
+						myTree.remove(value);
+					}
+				}
+			}
+		}));
+		
+		for (Thread thread : threads){
+			thread.start();
+		}
+		for (Thread thread : threads){
+			thread.join();
+		}
+		
+		assertNull(failure.get());
+		for (int i=0; i < range; i += 2){
+			assertTrue(myTree.contains(i));
+		}
+	}
+	
+}
@@ -0,0 +1,88 @@
+package treeset;
+
+import org.junit.Test;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+public class IntTreeSetTester extends PrimitiveTreeSetTests {
+
+	private static class ReverseIntComparator implements IntComparator{
+		public int compare(int o1, int o2){
+			return Integer.compare(o2, o1);
+		}
+	}
+
+	Target newSet(){
+		return new IntTarget(new IntTreeSet());
+	}
+
+	Target newReverseSet(){
+		return new IntTarget(new IntTreeSet(new ReverseIntComparator()));
+	}
+
+	long base(){
+		return 0;
+	}
+
+	long randomValue(Random rnd){
+		return rnd.nextInt();
+	}
+
+	@Test(expected=NullPointerException.class)
+	public void testComparatorNullReference(){
+		IntComparator comp = null;
+		new IntTreeSet(comp);
+	}
+
+
+	/**
+	 * Passes the long values of the shared tests on as ints.
+	 */
+	private static class IntTarget implements Target{
+
+		private final IntTreeSet intSet;
+
+		IntTarget(IntTreeSet intSet){
+			this.intSet = intSet;
+		}
+
+		public void add(long value){
+			intSet.add((int) value);
+		}
+
+		public boolean contains(long value){
+			return intSet.contains((int) value);
+		}
+
+		public void remove(long value){
+			intSet.remove((int) value);
+		}
+
+		public int size(){
+			return intSet.size();
+		}
+
+		public PrimitiveIterator.OfLong iterator(){
+			final PrimitiveIterator.OfInt iter = intSet.iterator();
+			return new PrimitiveIterator.OfLong(){
+				public boolean hasNext(){
+					return iter.hasNext();
+				}
+
+				public long nextLong(){
+					return iter.nextInt();
+				}
+
+				public void remove(){
+					iter.remove();
+				}
+			};
+		}
+
+		public String toString(){
+			return intSet.toString();
+		}
+	}
+
+}
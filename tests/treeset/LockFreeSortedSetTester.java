@@ -0,0 +1,129 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CyclicBarrier;
+
+public class LockFreeSortedSetTester {
+
+	private LockFreeSortedSet<Integer> mySet;
+	
+	@Before
+	public void setUp(){
+		mySet = new LockFreeSortedSet<Integer>();
+	}
+	
+	@Test
+	public void testSingleThreaded(){
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		Random rnd = new Random();
+		for (int i=0; i < 20000; ++i){
+			int value = rnd.nextInt(3000);
+			if (rnd.nextBoolean()){
+				mySet.add(value);
+				oracle.add(value);
+			} else {
+				mySet.remove(value);
+				oracle.remove(value);
+			}
+		}
+		
+		assertEquals(oracle.size(), mySet.size());
+		assertEquals(oracle.toString(), mySet.toString());
+		assertEquals(oracle.first(), mySet.first());
+		assertEquals(oracle.last(), mySet.last());
+		for (int i=-1; i <= 3000; ++i){
+			assertEquals(oracle.contains(i), mySet.contains(i));
+			assertEquals(oracle.floor(i), mySet.floor(i));
+			assertEquals(oracle.ceiling(i), mySet.ceiling(i));
+			assertEquals(oracle.lower(i), mySet.lower(i));
+			assertEquals(oracle.higher(i), mySet.higher(i));
+		}
+	}
+	
+	@Test
+	public void testComparatorAndIteratorRemove(){
+		LockFreeSortedSet<Integer> set = new LockFreeSortedSet<Integer>(new IntegerComparator());
+		for (int i=0; i < 10; ++i){
+			set.add(i);
+			set.add(i);
+		}
+		assertEquals("[9, 8, 7, 6, 5, 4, 3, 2, 1, 0]", set.toString());
+		
+		Iterator<Integer> iter = set.iterator();
+		while (iter.hasNext()){
+			if (iter.next() % 2 == 0){
+				iter.remove();
+			}
+		}
+		assertEquals("[9, 7, 5, 3, 1]", set.toString());
+		assertEquals(5, set.size());
+	}
+	
+	@Test(expected=NoSuchElementException.class)
+	public void testLastOfEmptySet(){
+		mySet.add(1);
+		mySet.remove(1);
+		mySet.last();
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testAddNull(){
+		mySet.add(null);
+	}
+	
+	@Test
+	public void testConcurrentWriters() throws InterruptedException{
+		final int threadCount = 8;
+		final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+		final int range = 20000;
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		
+		// Every thread adds all elements, then removes its own share of them,
+		// so the threads constantly compete for the same nodes. The removals
+		// start when every thread is done adding.
+		for (int t=0; t < threadCount; ++t){
+			final int id = t;
+			threads.add(new Thread(new Runnable(){
+				public void run(){
+					for (int i=0; i < range; ++i){
+						mySet.add(i);
+					}
+					try {
+						barrier.await();
+					} catch (Exception e){
+						throw new RuntimeException(e);
+					}
+					for (int i=id; i < range; i += threadCount){
+						if (i % 2 == 1){
+							mySet.remove(i);
+						}
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads){
+			thread.start();
+		}
+		for (Thread thread : threads){
+			thread.join();
+		}
+		
+		assertEquals(range / 2, mySet.size());
+		int expected = 0;
+		for (int value : mySet){
+			assertEquals(expected, value);
+			expected += 2;
+		}
+		assertEquals(range, expected);
+	}
+	
+}
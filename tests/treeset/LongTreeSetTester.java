@@ -0,0 +1,98 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+public class LongTreeSetTester extends PrimitiveTreeSetTests {
+
+	private static class ReverseLongComparator implements LongComparator{
+		public int compare(long o1, long o2){
+			return Long.compare(o2, o1);
+		}
+	}
+
+	Target newSet(){
+		return new LongTarget(new LongTreeSet());
+	}
+
+	Target newReverseSet(){
+		return new LongTarget(new LongTreeSet(new ReverseLongComparator()));
+	}
+
+	/**
+	 * The random values straddle Integer.MAX_VALUE.
+	 */
+	long base(){
+		return Integer.MAX_VALUE;
+	}
+
+	long randomValue(Random rnd){
+		return rnd.nextLong();
+	}
+
+	@Test(expected=NullPointerException.class)
+	public void testComparatorNullReference(){
+		LongComparator comp = null;
+		new LongTreeSet(comp);
+	}
+
+	@Test
+	public void testValuesBeyondIntRange(){
+		LongTreeSet longSet = new LongTreeSet();
+		long[] values = {Long.MAX_VALUE, 1L << 32, 0, -(1L << 32), Long.MIN_VALUE, (1L << 32) + 1, 1};
+		for (long value : values){
+			longSet.add(value);
+		}
+		assertEquals(values.length, longSet.size());
+
+		// Values that are equal in their lower 32 bits stay apart.
+		assertTrue(longSet.contains(1L << 32));
+		longSet.remove(0);
+		assertFalse(longSet.contains(0));
+		assertTrue(longSet.contains(1L << 32));
+		assertTrue(longSet.contains(-(1L << 32)));
+		assertEquals("[" + Long.MIN_VALUE + ", " + -(1L << 32) + ", 1, " + (1L << 32) + ", " + ((1L << 32) + 1) + ", " + Long.MAX_VALUE + "]", longSet.toString());
+	}
+
+
+	/**
+	 * Passes the values of the shared tests on unchanged.
+	 */
+	private static class LongTarget implements Target{
+
+		private final LongTreeSet longSet;
+
+		LongTarget(LongTreeSet longSet){
+			this.longSet = longSet;
+		}
+
+		public void add(long value){
+			longSet.add(value);
+		}
+
+		public boolean contains(long value){
+			return longSet.contains(value);
+		}
+
+		public void remove(long value){
+			longSet.remove(value);
+		}
+
+		public int size(){
+			return longSet.size();
+		}
+
+		public PrimitiveIterator.OfLong iterator(){
+			return longSet.iterator();
+		}
+
+		public String toString(){
+			return longSet.toString();
+		}
+	}
+
+}
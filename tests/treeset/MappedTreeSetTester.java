@@ -0,0 +1,133 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class MappedTreeSetTester {
+
+	private Path file;
+	
+	@Before
+	public void setUp() throws IOException{
+		file = Files.createTempFile("mappedtreeset", ".bin");
+	}
+	
+	@After
+	public void tearDown() throws IOException{
+		Files.deleteIfExists(file);
+	}
+	
+	@Test
+	public void testAgainstOracle() throws IOException{
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL);
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		Random rnd = new Random();
+		for (int i=0; i < 50000; ++i){
+			int value = rnd.nextInt(200000) - 100000;
+			tree.add(value);
+			oracle.add(value);
+		}
+		
+		MappedTreeSet.write(tree, file, FixedWidthCodecs.INTEGER);
+		MappedTreeSet<Integer> mapped = MappedTreeSet.open(file, FixedWidthCodecs.INTEGER);
+		
+		assertEquals(oracle.size(), mapped.size());
+		assertEquals(oracle.first(), mapped.first());
+		assertEquals(oracle.last(), mapped.last());
+		for (int i=0; i < 20000; ++i){
+			int value = rnd.nextInt(220000) - 110000;
+			assertEquals(oracle.contains(value), mapped.contains(value));
+			assertEquals(oracle.floor(value), mapped.floor(value));
+			assertEquals(oracle.ceiling(value), mapped.ceiling(value));
+			assertEquals(oracle.lower(value), mapped.lower(value));
+			assertEquals(oracle.higher(value), mapped.higher(value));
+		}
+		
+		Iterator<Integer> expected = oracle.iterator();
+		for (int value : mapped){
+			assertEquals(expected.next().intValue(), value);
+		}
+		assertFalse(expected.hasNext());
+	}
+	
+	@Test
+	public void testComparator() throws IOException{
+		MyTreeSet<Long> tree = new MyTreeSet<Long>(new java.util.Comparator<Long>(){
+			public int compare(Long o1, Long o2){
+				return o2.compareTo(o1);
+			}
+		});
+		for (long i=0; i < 100; ++i){
+			tree.add(i * 1000000000000L);
+		}
+		
+		MappedTreeSet.write(tree, file, FixedWidthCodecs.LONG);
+		MappedTreeSet<Long> mapped = MappedTreeSet.open(file, FixedWidthCodecs.LONG, new java.util.Comparator<Long>(){
+			public int compare(Long o1, Long o2){
+				return o2.compareTo(o1);
+			}
+		});
+		assertEquals(tree.toString(), mapped.toString());
+		assertEquals(Long.valueOf(99000000000000L), mapped.first());
+		assertEquals(Long.valueOf(4000000000000L), mapped.higher(5000000000000L));
+		assertTrue(mapped.contains(0L));
+		assertFalse(mapped.contains(1L));
+	}
+	
+	@Test
+	public void testEmptySet() throws IOException{
+		MappedTreeSet.write(new MyTreeSet<Integer>(), file, FixedWidthCodecs.INTEGER);
+		MappedTreeSet<Integer> mapped = MappedTreeSet.open(file, FixedWidthCodecs.INTEGER);
+		
+		assertEquals(0, mapped.size());
+		assertFalse(mapped.contains(1));
+		assertNull(mapped.floor(1));
+		assertEquals("[]", mapped.toString());
+		try {
+			mapped.first();
+			fail();
+		} catch (NoSuchElementException e){
+		}
+	}
+	
+	@Test(expected=IOException.class)
+	public void testWrongCodec() throws IOException{
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>();
+		tree.add(1);
+		MappedTreeSet.write(tree, file, FixedWidthCodecs.INTEGER);
+		MappedTreeSet.open(file, FixedWidthCodecs.LONG);
+	}
+	
+	@Test(expected=IOException.class)
+	public void testCorruptSize() throws IOException{
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>();
+		tree.add(1);
+		MappedTreeSet.write(tree, file, FixedWidthCodecs.INTEGER);
+		
+		// 2^62 elements of 4 bytes overflow a long to 0 bytes.
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer size = ByteBuffer.allocate(8);
+			size.putLong(1L << 62).flip();
+			channel.write(size, 12);
+		} finally {
+			channel.close();
+		}
+		MappedTreeSet.open(file, FixedWidthCodecs.INTEGER);
+	}
+	
+}
@@ -0,0 +1,148 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+public class MyTreeMapTester {
+
+	private MyTreeMap<Integer, String> myMap;
+	
+	@Before
+	public void setUp(){
+		myMap = new MyTreeMap<Integer, String>(Balancing.AVL);
+	}
+	
+	@Test
+	public void testAgainstOracle(){
+		TreeMap<Integer, String> oracle = new TreeMap<Integer, String>();
+		Random rnd = new Random();
+		for (int i=0; i < 20000; ++i){
+			int key = rnd.nextInt(2000);
+			if (rnd.nextInt(3) != 0){
+				assertEquals(oracle.put(key, "v" + i), myMap.put(key, "v" + i));
+			} else {
+				assertEquals(oracle.remove(key), myMap.remove(key));
+			}
+		}
+		
+		assertEquals(oracle.size(), myMap.size());
+		assertEquals(oracle.toString(), myMap.toString());
+		assertEquals(oracle.firstKey(), myMap.firstKey());
+		assertEquals(oracle.lastKey(), myMap.lastKey());
+		for (int i=-1; i <= 2000; ++i){
+			assertEquals(oracle.get(i), myMap.get(i));
+			assertEquals(oracle.containsKey(i), myMap.containsKey(i));
+			assertEquals(oracle.floorKey(i), myMap.floorKey(i));
+			assertEquals(oracle.ceilingKey(i), myMap.ceilingKey(i));
+			assertEquals(oracle.lowerKey(i), myMap.lowerKey(i));
+			assertEquals(oracle.higherKey(i), myMap.higherKey(i));
+		}
+		
+		Iterator<Map.Entry<Integer, String> > expected = oracle.entrySet().iterator();
+		for (Map.Entry<Integer, String> entry : myMap){
+			assertEquals(expected.next(), entry);
+		}
+		assertFalse(expected.hasNext());
+	}
+	
+	@Test
+	public void testComputeIfAbsentSearchesOnce(){
+		final int[] comparisons = new int[1];
+		final int[] calls = new int[1];
+		MyTreeMap<Integer, Integer> map = new MyTreeMap<Integer, Integer>(new java.util.Comparator<Integer>(){
+			public int compare(Integer o1, Integer o2){
+				++comparisons[0];
+				return o1.compareTo(o2);
+			}
+		}, Balancing.AVL);
+		Function<Integer, Integer> square = new Function<Integer, Integer>(){
+			public Integer apply(Integer key){
+				++calls[0];
+				return key * key;
+			}
+		};
+		
+		for (int i=0; i < 1000; ++i){
+			map.put(2 * i, -1);
+		}
+		for (int i=0; i < 2000; ++i){
+			comparisons[0] = 0;
+			Integer value = map.computeIfAbsent(i, square);
+			assertEquals(i % 2 == 0 ? Integer.valueOf(-1) : Integer.valueOf(i * i), value);
+			assertTrue(comparisons[0] <= 12);
+		}
+		assertEquals(1000, calls[0]);
+		assertEquals(2000, map.size());
+		
+		Function<Integer, Integer> nothing = new Function<Integer, Integer>(){
+			public Integer apply(Integer key){
+				return null;
+			}
+		};
+		assertNull(map.computeIfAbsent(5000, nothing));
+		assertFalse(map.containsKey(5000));
+		assertEquals(2000, map.size());
+	}
+	
+	@Test
+	public void testMerge(){
+		BiFunction<Integer, Integer, Integer> sum = new BiFunction<Integer, Integer, Integer>(){
+			public Integer apply(Integer oldValue, Integer value){
+				int total = oldValue + value;
+				return total == 0 ? null : total;
+			}
+		};
+		MyTreeMap<String, Integer> counts = new MyTreeMap<String, Integer>();
+		for (String word : "b a c a b a".split(" ")){
+			counts.merge(word, 1, sum);
+		}
+		assertEquals("{a=3, b=2, c=1}", counts.toString());
+		
+		assertNull(counts.merge("c", -1, sum));
+		assertEquals("{a=3, b=2}", counts.toString());
+		assertEquals(Integer.valueOf(5), counts.merge("a", 2, sum));
+	}
+	
+	@Test
+	public void testIterator(){
+		for (int i=0; i < 10; ++i){
+			myMap.put(i, "v" + i);
+		}
+		
+		Iterator<Map.Entry<Integer, String> > iter = myMap.iterator();
+		while (iter.hasNext()){
+			Map.Entry<Integer, String> entry = iter.next();
+			if (entry.getKey() % 2 == 0){
+				iter.remove();
+			} else {
+				entry.setValue("odd");
+			}
+		}
+		assertEquals("{1=odd, 3=odd, 5=odd, 7=odd, 9=odd}", myMap.toString());
+		
+		iter = myMap.iterator();
+		iter.next();
+		myMap.put(100, "new");
+		try {
+			iter.next();
+			fail();
+		} catch (ConcurrentModificationException e){
+		}
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testNullKey(){
+		myMap.put(null, "value");
+	}
+	
+}
@@ -0,0 +1,80 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class MyTreeSetLoaderTester {
+
+	private ArrayList<Integer> randomInput(int n, int bound){
+		Random rnd = new Random();
+		ArrayList<Integer> input = new ArrayList<Integer>();
+		for (int i=0; i < n; ++i){
+			input.add(rnd.nextInt(bound));
+		}
+		return input;
+	}
+	
+	@Test
+	public void testParallelCollector(){
+		ArrayList<Integer> input = randomInput(200000, 100000);
+		TreeSet<Integer> oracle = new TreeSet<Integer>(input);
+		
+		MyTreeSet<Integer> tree = input.parallelStream().collect(MyTreeSetLoader.<Integer>toMyTreeSet());
+		assertEquals(oracle.size(), tree.size());
+		assertEquals(oracle.toString(), tree.toString());
+		assertTrue(tree.height() <= 1 + Math.log(tree.size()) / Math.log(2));
+		
+		tree.add(-1);
+		tree.remove(oracle.first());
+		oracle.add(-1);
+		oracle.remove(oracle.higher(-1));
+		assertEquals(oracle.toString(), tree.toString());
+	}
+	
+	@Test
+	public void testSequentialCollectorWithComparator(){
+		ArrayList<Integer> input = randomInput(10000, 5000);
+		TreeSet<Integer> oracle = new TreeSet<Integer>(new IntegerComparator());
+		oracle.addAll(input);
+		
+		MyTreeSet<Integer> tree = input.stream().collect(MyTreeSetLoader.toMyTreeSet(new IntegerComparator(), Balancing.AVL));
+		assertEquals(oracle.size(), tree.size());
+		assertEquals(oracle.toString(), tree.toString());
+	}
+	
+	@Test
+	public void testForkJoinLoad(){
+		ArrayList<Integer> input = randomInput(200000, 100000);
+		TreeSet<Integer> oracle = new TreeSet<Integer>(input);
+		
+		MyTreeSet<Integer> tree = MyTreeSetLoader.load(input, Balancing.AVL);
+		assertEquals(oracle.size(), tree.size());
+		assertEquals(oracle.toString(), tree.toString());
+		assertTrue(tree.height() <= 1 + Math.log(tree.size()) / Math.log(2));
+		
+		TreeSet<Integer> compOracle = new TreeSet<Integer>(new IntegerComparator());
+		compOracle.addAll(input);
+		MyTreeSet<Integer> compTree = MyTreeSetLoader.load(input, new IntegerComparator(), Balancing.NONE);
+		assertEquals(compOracle.toString(), compTree.toString());
+		
+		assertEquals(0, MyTreeSetLoader.load(new ArrayList<Integer>(), Balancing.NONE).size());
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testLoadNullComparator(){
+		MyTreeSetLoader.load(randomInput(100, 100), null, Balancing.AVL);
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testLoadNullElement(){
+		ArrayList<Integer> input = randomInput(100, 100);
+		input.add(null);
+		MyTreeSetLoader.load(input, Balancing.NONE);
+	}
+	
+}
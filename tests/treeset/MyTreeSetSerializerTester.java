@@ -0,0 +1,129 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MyTreeSetSerializerTester {
+
+	@Test
+	public void testIntegerRoundTrip() throws IOException{
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>();
+		Random rnd = new Random();
+		for (int i=0; i < 10000; ++i){
+			tree.add(rnd.nextInt());
+		}
+		tree.add(Integer.MIN_VALUE);
+		tree.add(Integer.MAX_VALUE);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MyTreeSetSerializer.write(tree, bytes, ElementCodecs.INTEGER);
+		MyTreeSet<Integer> copy = MyTreeSetSerializer.read(new ByteArrayInputStream(bytes.toByteArray()), ElementCodecs.INTEGER);
+		
+		assertEquals(tree.size(), copy.size());
+		assertEquals(tree.toString(), copy.toString());
+		assertTrue(copy.height() <= 1 + Math.log(copy.size()) / Math.log(2));
+	}
+	
+	@Test
+	public void testDenseKeysAreSmall() throws IOException{
+		ArrayList<Long> keys = new ArrayList<Long>();
+		for (long i=0; i < 100000; ++i){
+			keys.add(1000000000000L + 3 * i);
+		}
+		MyTreeSet<Long> tree = new MyTreeSet<Long>();
+		tree.addAll(keys);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MyTreeSetSerializer.write(tree, bytes, ElementCodecs.LONG);
+		assertTrue(bytes.size() < 100000 + 20);
+		
+		MyTreeSet<Long> copy = MyTreeSetSerializer.read(new ByteArrayInputStream(bytes.toByteArray()), ElementCodecs.LONG);
+		assertEquals(tree.toString(), copy.toString());
+	}
+	
+	@Test
+	public void testComparatorAndChannels() throws IOException{
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(new IntegerComparator(), Balancing.AVL);
+		for (int i=-500; i < 500; i += 7){
+			tree.add(i);
+		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MyTreeSetSerializer.write(tree, Channels.newChannel(bytes), ElementCodecs.INTEGER);
+		MyTreeSet<Integer> copy = MyTreeSetSerializer.read(new ByteArrayInputStream(bytes.toByteArray()), ElementCodecs.INTEGER, new IntegerComparator(), Balancing.AVL);
+		assertEquals(tree.toString(), copy.toString());
+		
+		// Read back with natural ordering the elements arrive in reverse.
+		MyTreeSet<Integer> natural = MyTreeSetSerializer.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), ElementCodecs.INTEGER);
+		assertEquals(tree.size(), natural.size());
+		assertEquals(tree.last(), natural.first());
+	}
+	
+	@Test
+	public void testStringsAndSeveralSetsInOneStream() throws IOException{
+		MyTreeSet<String> first = new MyTreeSet<String>();
+		for (String word : "apple application apply banana band bandana åka 😀a 😁b".split(" ")){
+			first.add(word);
+		}
+		MyTreeSet<String> second = new MyTreeSet<String>();
+		second.add("");
+		second.add("x");
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MyTreeSetSerializer.write(first, bytes, ElementCodecs.STRING);
+		MyTreeSetSerializer.write(second, bytes, ElementCodecs.STRING);
+		
+		BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(first.toString(), MyTreeSetSerializer.read(in, ElementCodecs.STRING).toString());
+		assertEquals(second.toString(), MyTreeSetSerializer.read(in, ElementCodecs.STRING).toString());
+		assertEquals(-1, in.read());
+	}
+	
+	@Test(expected=IOException.class)
+	public void testNotASet() throws IOException{
+		MyTreeSetSerializer.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6}), ElementCodecs.INTEGER);
+	}
+	
+	@Test
+	public void testCorruptStrings() throws IOException{
+		MyTreeSet<String> tree = new MyTreeSet<String>();
+		tree.add("ab");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MyTreeSetSerializer.write(tree, bytes, ElementCodecs.STRING);
+		byte[] valid = bytes.toByteArray();
+		// The element is the shared prefix length 0, the length 2 and "ab".
+		byte[] header = Arrays.copyOf(valid, valid.length - 4);
+		
+		byte[][] corrupt = {
+				Arrays.copyOf(valid, valid.length - 1),
+				concat(header, new byte[]{1, 2, 'a', 'b'}),
+				concat(header, new byte[]{0, -1, -1, -1, -1, 7, 'a', 'b'}),
+				concat(header, new byte[]{0, -1, -1, -1, -1, -1, -1, -1, -1, 1, 'a'}),
+		};
+		for (byte[] input : corrupt){
+			try {
+				MyTreeSetSerializer.read(new ByteArrayInputStream(input), ElementCodecs.STRING);
+				fail("Read a corrupt set.");
+			} catch (IOException e){
+				// Expected.
+			}
+		}
+	}
+	
+	private static byte[] concat(byte[] first, byte[] second){
+		byte[] result = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+	
+}
@@ -11,6 +11,7 @@ import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.TreeSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -673,6 +674,1212 @@ public class MyTreeSetTester {
 	}
 	
 		
+	
+	@Test (expected=NullPointerException.class)
+	public void testBalancingNullReference(){
+		Balancing balancing = null;
+		new MyTreeSet<Integer>(balancing);
+	}
+	
+	@Test
+	public void testBalancedSortedInputKeepsLogarithmicHeight(){
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL);
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		int n = 100000;
+		
+		for (int i=0; i < n; ++i){
+			tree.add(i);
+			oracle.add(i);
+		}
+		assertEquals(oracle.size(), tree.size());
+		assertEquals(oracle.toString(), tree.toString());
+		assertTrue(tree.height() <= 1.45 * Math.log(n + 2) / Math.log(2));
+		
+		for (int i=0; i < n; i += 2){
+			tree.remove(i);
+			oracle.remove(i);
+		}
+		assertEquals(oracle.size(), tree.size());
+		assertEquals(oracle.toString(), tree.toString());
+		assertTrue(tree.height() <= 1.45 * Math.log(n / 2 + 2) / Math.log(2));
+	}
+	
+	@Test
+	public void testBalancedAddAndRemoveRightHeavyTree(){
+		Integer[] input = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL);
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		
+		addInputArrayToTree(input, tree, oracle);
+		assertEquals(4, tree.height());
+		
+		for (int i=0; i < input.length; ++i){
+			tree.remove(input[i]);
+			oracle.remove(input[i]);
+			assertFalse(tree.contains(input[i]));
+			
+			assertEquals(oracle.size(), tree.size());
+			assertEquals(oracle.toString(), tree.toString());	
+		}
+	}
+	
+	@Test
+	public void testBalancedAddAndRemoveRandomElements(){
+		Random rnd = new Random();
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL);
+		MyTreeSet<Integer> compTree = new MyTreeSet<Integer>(new IntegerComparator(), Balancing.AVL);
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		TreeSet<Integer> compOracle = new TreeSet<Integer>(new IntegerComparator());
+		
+		for (int i=0; i < 20000; ++i){
+			Integer val = rnd.nextInt(2000);
+			if (rnd.nextBoolean()){
+				tree.add(val);
+				oracle.add(val);
+				compTree.add(val);
+				compOracle.add(val);
+			} else {
+				tree.remove(val);
+				oracle.remove(val);
+				compTree.remove(val);
+				compOracle.remove(val);
+			}
+			assertEquals(oracle.contains(val), tree.contains(val));
+			assertEquals(compOracle.contains(val), compTree.contains(val));
+			assertEquals(oracle.size(), tree.size());
+			assertEquals(compOracle.size(), compTree.size());
+		}
+		assertEquals(oracle.toString(), tree.toString());
+		assertEquals(compOracle.toString(), compTree.toString());
+		assertTrue(tree.height() <= 1.45 * Math.log(tree.size() + 2) / Math.log(2));
+	}
+	
+	@Test
+	public void testBalancedIteratorRemove(){
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL);
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		
+		for (int i=0; i < 1000; ++i){
+			tree.add(i);
+			oracle.add(i);
+		}
+		
+		Iterator<Integer> iter = tree.iterator();
+		Iterator<Integer> oracleIter = oracle.iterator();
+		while (iter.hasNext()){
+			Integer val = iter.next();
+			assertEquals(oracleIter.next(), val);
+			if (val % 3 != 0){
+				iter.remove();
+				oracleIter.remove();
+			}
+		}
+		assertEquals(oracle.size(), tree.size());
+		assertEquals(oracle.toString(), tree.toString());
+	}
+	
+	@Test
+	public void testDegenerateTreeOnSmallStack() throws InterruptedException {
+		final Throwable[] failure = new Throwable[1];
+		Runnable task = new Runnable(){
+			public void run(){
+				try {
+					MyTreeSet<Integer> tree = new MyTreeSet<Integer>();
+					MyTreeSet<Integer> compTree = new MyTreeSet<Integer>(new IntegerComparator());
+					int n = 5000;
+					
+					for (int i=0; i < n; ++i){
+						tree.add(i);
+						compTree.add(i);
+					}
+					assertEquals(n, tree.height());
+					assertEquals(n, compTree.height());
+					
+					for (int i=0; i < n; ++i){
+						assertTrue(tree.contains(i));
+						assertTrue(compTree.contains(i));
+					}
+					for (int i=n-1; i >= 0; --i){
+						tree.remove(i);
+						compTree.remove(i);
+					}
+					assertEquals(0, tree.size());
+					assertEquals(0, compTree.size());
+				} catch (Throwable t){
+					failure[0] = t;
+				}
+			}
+		};
+		
+		Thread worker = new Thread(null, task, "small-stack", 64 * 1024);
+		worker.start();
+		worker.join();
+		assertNull(failure[0]);
+	}
+	
+	@Test
+	public void testOneComparisonPerVisitedNode(){
+		final int[] comparisons = new int[1];
+		Comparator<Integer> counting = new Comparator<Integer>(){
+			public int compare(Integer o1, Integer o2){
+				++comparisons[0];
+				return o1.compareTo(o2);
+			}
+		};
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(counting, Balancing.AVL);
+		for (int i=0; i < 1023; ++i){
+			tree.add(i);
+		}
+		int height = tree.height();
+		
+		for (int i=-1; i <= 1023; ++i){
+			comparisons[0] = 0;
+			tree.contains(i);
+			assertTrue(comparisons[0] <= height);
+			
+			comparisons[0] = 0;
+			tree.add(i);
+			assertTrue(comparisons[0] <= height + 1);
+		}
+		
+		for (int i=0; i < 1023; ++i){
+			height = tree.height();
+			comparisons[0] = 0;
+			tree.remove(i);
+			assertTrue(comparisons[0] <= height);
+		}
+	}
+	
+	@Test
+	public void testFirstAndLast(){
+		MyTreeSet<Integer> compTree = new MyTreeSet<Integer>(new IntegerComparator());
+		Integer[] input = {5, 6, 4, 7, 3, 8, 2, 9, 1, 10};
+		for (Integer val : input){
+			myTree.add(val);
+			compTree.add(val);
+		}
+		assertEquals(Integer.valueOf(1), myTree.first());
+		assertEquals(Integer.valueOf(10), myTree.last());
+		assertEquals(Integer.valueOf(10), compTree.first());
+		assertEquals(Integer.valueOf(1), compTree.last());
+	}
+	
+	@Test(expected=NoSuchElementException.class)
+	public void testFirstOnEmptySet(){
+		myTree.first();
+	}
+	
+	@Test(expected=NoSuchElementException.class)
+	public void testLastOnEmptySet(){
+		myTree.last();
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testFloorNull(){
+		myTree.floor(null);
+	}
+	
+	@Test
+	public void testNavigationQueries(){
+		Random rnd = new Random();
+		for (Balancing balancing : Balancing.values()){
+			MyTreeSet<Integer> tree = new MyTreeSet<Integer>(balancing);
+			MyTreeSet<Integer> compTree = new MyTreeSet<Integer>(new IntegerComparator(), balancing);
+			TreeSet<Integer> oracle = new TreeSet<Integer>();
+			TreeSet<Integer> compOracle = new TreeSet<Integer>(new IntegerComparator());
+			
+			for (int i=-1; i <= 200; ++i){
+				assertEquals(oracle.floor(i), tree.floor(i));
+				assertEquals(oracle.ceiling(i), tree.ceiling(i));
+			}
+			
+			for (int i=0; i < 100; ++i){
+				Integer val = rnd.nextInt(200);
+				tree.add(val);
+				oracle.add(val);
+				compTree.add(val);
+				compOracle.add(val);
+			}
+			
+			for (int i=-1; i <= 200; ++i){
+				assertEquals(oracle.floor(i), tree.floor(i));
+				assertEquals(oracle.ceiling(i), tree.ceiling(i));
+				assertEquals(oracle.lower(i), tree.lower(i));
+				assertEquals(oracle.higher(i), tree.higher(i));
+				
+				assertEquals(compOracle.floor(i), compTree.floor(i));
+				assertEquals(compOracle.ceiling(i), compTree.ceiling(i));
+				assertEquals(compOracle.lower(i), compTree.lower(i));
+				assertEquals(compOracle.higher(i), compTree.higher(i));
+			}
+			assertEquals(oracle.first(), tree.first());
+			assertEquals(oracle.last(), tree.last());
+		}
+	}
+	
+	@Test
+	public void testRangeViews(){
+		Random rnd = new Random();
+		for (Balancing balancing : Balancing.values()){
+			MyTreeSet<Integer> tree = new MyTreeSet<Integer>(balancing);
+			TreeSet<Integer> oracle = new TreeSet<Integer>();
+			for (int i=0; i < 100; ++i){
+				Integer val = rnd.nextInt(100);
+				tree.add(val);
+				oracle.add(val);
+			}
+			
+			for (int from=-1; from <= 100; from += 3){
+				for (int to=from; to <= 101; to += 5){
+					for (int flags=0; flags < 4; ++flags){
+						boolean fromInclusive = (flags & 1) != 0;
+						boolean toInclusive = (flags & 2) != 0;
+						
+						MyTreeSet<Integer>.SubSet view = tree.subSet(from, fromInclusive, to, toInclusive);
+						Set<Integer> oracleView = oracle.subSet(from, fromInclusive, to, toInclusive);
+						assertEquals(oracleView.toString(), view.toString());
+						assertEquals(oracleView.size(), view.size());
+						
+						ArrayList<Integer> iterated = new ArrayList<Integer>();
+						for (Integer val : view){
+							iterated.add(val);
+						}
+						assertEquals(new ArrayList<Integer>(oracleView), iterated);
+					}
+				}
+				assertEquals(oracle.headSet(from, false).toString(), tree.headSet(from, false).toString());
+				assertEquals(oracle.headSet(from, true).toString(), tree.headSet(from, true).toString());
+				assertEquals(oracle.tailSet(from, false).toString(), tree.tailSet(from, false).toString());
+				assertEquals(oracle.tailSet(from, true).toString(), tree.tailSet(from, true).toString());
+			}
+		}
+	}
+	
+	@Test
+	public void testRangeViewIsLive(){
+		MyTreeSet<Integer> compTree = new MyTreeSet<Integer>(new IntegerComparator());
+		MyTreeSet<Integer>.SubSet view = compTree.subSet(20, true, 10, false);
+		assertEquals("[]", view.toString());
+		
+		for (int i=0; i < 30; ++i){
+			compTree.add(i);
+		}
+		assertEquals("[20, 19, 18, 17, 16, 15, 14, 13, 12, 11]", view.toString());
+		assertEquals(Integer.valueOf(20), view.first());
+		assertEquals(Integer.valueOf(11), view.last());
+		assertTrue(view.contains(15));
+		assertFalse(view.contains(10));
+		
+		view.remove(15);
+		view.remove(25);
+		assertFalse(compTree.contains(15));
+		assertTrue(compTree.contains(25));
+		
+		Iterator<Integer> iter = view.iterator();
+		while (iter.hasNext()){
+			if (iter.next() % 2 == 0){
+				iter.remove();
+			}
+		}
+		assertEquals("[19, 17, 13, 11]", view.toString());
+		assertEquals(24, compTree.size());
+		
+		view.add(15);
+		assertEquals("[19, 17, 15, 13, 11]", view.toString());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testRangeViewAddOutOfRange(){
+		myTree.headSet(10, false).add(10);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testRangeViewReversedBounds(){
+		myTree.subSet(10, true, 5, true);
+	}
+	
+	@Test(expected=NoSuchElementException.class)
+	public void testRangeViewFirstOnEmptyRange(){
+		myTree.add(5);
+		myTree.subSet(5, false, 5, false).first();
+	}
+	
+	@Test
+	public void testDescendingIterator(){
+		Random rnd = new Random();
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		for (int i=0; i < 1000; ++i){
+			Integer val = rnd.nextInt(5000);
+			myTree.add(val);
+			oracle.add(val);
+		}
+		
+		Iterator<Integer> iter = myTree.descendingIterator();
+		Iterator<Integer> oracleIter = oracle.descendingIterator();
+		while (iter.hasNext()){
+			Integer val = iter.next();
+			assertEquals(oracleIter.next(), val);
+			if (rnd.nextBoolean()){
+				iter.remove();
+				oracleIter.remove();
+			}
+		}
+		assertFalse(oracleIter.hasNext());
+		assertEquals(oracle.size(), myTree.size());
+		assertEquals(oracle.toString(), myTree.toString());
+	}
+	
+	@Test (expected=ConcurrentModificationException.class)
+	public void testDescendingIteratorConcurrentException(){
+		myTree.add(1);
+		Iterator<Integer> iter = myTree.descendingIterator();
+		myTree.add(2);
+		iter.next();
+	}
+	
+	@Test (expected=NoSuchElementException.class)
+	public void testDescendingIteratorNoSuchElementException(){
+		myTree.descendingIterator().next();
+	}
+	
+	@Test
+	public void testDescendingSet(){
+		MyTreeSet<Integer>.DescendingSet descending = myTree.descendingSet();
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		Set<Integer> oracleDescending = oracle.descendingSet();
+		Integer[] input = {5, 6, 4, 7, 3, 8, 2, 9, 1, 10};
+		for (Integer val : input){
+			descending.add(val);
+			oracle.add(val);
+		}
+		
+		assertEquals(oracleDescending.toString(), descending.toString());
+		assertEquals(oracle.size(), descending.size());
+		assertEquals(Integer.valueOf(10), descending.first());
+		assertEquals(Integer.valueOf(1), descending.last());
+		assertEquals(Integer.valueOf(5), descending.floor(5));
+		assertEquals(Integer.valueOf(6), descending.lower(5));
+		assertEquals(Integer.valueOf(4), descending.higher(5));
+		assertNull(descending.ceiling(0));
+		
+		ArrayList<Integer> iterated = new ArrayList<Integer>();
+		for (Integer val : descending){
+			iterated.add(val);
+		}
+		assertEquals(new ArrayList<Integer>(oracleDescending), iterated);
+		
+		descending.remove(5);
+		assertFalse(myTree.contains(5));
+		assertSame(myTree, descending.descendingSet());
+	}
+	
+	@Test
+	public void testAddAllSortedInput(){
+		int n = 1000000;
+		ArrayList<Integer> input = new ArrayList<Integer>();
+		for (int i=0; i < n; ++i){
+			input.add(i);
+			if (i % 10 == 0){
+				input.add(i);
+			}
+		}
+		
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>();
+		tree.addAll(input);
+		assertEquals(n, tree.size());
+		assertEquals(20, tree.height());
+		assertEquals(Integer.valueOf(0), tree.first());
+		assertEquals(Integer.valueOf(n - 1), tree.last());
+		
+		int expected = 0;
+		for (Integer val : tree){
+			assertEquals(expected++, val.intValue());
+		}
+		assertEquals(n, expected);
+		
+		for (int i=0; i < n; i += 1000){
+			assertTrue(tree.contains(i));
+			tree.remove(i);
+			assertFalse(tree.contains(i));
+		}
+		assertEquals(n - n / 1000, tree.size());
+	}
+	
+	@Test
+	public void testAddAllSortedInputKeepsAvlBalance(){
+		ArrayList<Integer> input = new ArrayList<Integer>();
+		for (int i=100; i > 0; --i){
+			input.add(i);
+		}
+		MyTreeSet<Integer> compTree = new MyTreeSet<Integer>(new IntegerComparator(), Balancing.AVL);
+		TreeSet<Integer> oracle = new TreeSet<Integer>(new IntegerComparator());
+		compTree.addAll(input);
+		oracle.addAll(input);
+		assertEquals(oracle.toString(), compTree.toString());
+		
+		for (int i=0; i < 200; ++i){
+			compTree.add(i);
+			oracle.add(i);
+		}
+		for (int i=0; i < 200; i += 3){
+			compTree.remove(i);
+			oracle.remove(i);
+		}
+		assertEquals(oracle.toString(), compTree.toString());
+		assertTrue(compTree.height() <= 1.45 * Math.log(compTree.size() + 2) / Math.log(2));
+	}
+	
+	@Test
+	public void testAddAllUnsortedInput(){
+		Random rnd = new Random();
+		ArrayList<Integer> input = new ArrayList<Integer>();
+		for (int i=0; i < 1000; ++i){
+			input.add(rnd.nextInt(500));
+		}
+		TreeSet<Integer> oracle = new TreeSet<Integer>(input);
+		
+		myTree.addAll(input);
+		assertEquals(oracle.size(), myTree.size());
+		assertEquals(oracle.toString(), myTree.toString());
+		
+		myTree.addAll(input);
+		myTree.addAll(new ArrayList<Integer>(oracle));
+		assertEquals(oracle.toString(), myTree.toString());
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testAddAllNullElement(){
+		ArrayList<Integer> input = new ArrayList<Integer>();
+		input.add(1);
+		input.add(null);
+		myTree.addAll(input);
+	}
+	
+	@Test
+	public void testSetAlgebra(){
+		Random rnd = new Random();
+		MyTreeSet<Integer> other = new MyTreeSet<Integer>();
+		MyTreeSet<Integer> compOther = new MyTreeSet<Integer>(new IntegerComparator());
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		TreeSet<Integer> otherOracle = new TreeSet<Integer>();
+		for (int i=0; i < 1000; ++i){
+			Integer val = rnd.nextInt(2000);
+			myTree.add(val);
+			oracle.add(val);
+			
+			val = rnd.nextInt(2000);
+			other.add(val);
+			compOther.add(val);
+			otherOracle.add(val);
+		}
+		
+		TreeSet<Integer> union = new TreeSet<Integer>(oracle);
+		union.addAll(otherOracle);
+		TreeSet<Integer> intersection = new TreeSet<Integer>(oracle);
+		intersection.retainAll(otherOracle);
+		TreeSet<Integer> difference = new TreeSet<Integer>(oracle);
+		difference.removeAll(otherOracle);
+		TreeSet<Integer> symmetric = new TreeSet<Integer>(union);
+		symmetric.removeAll(intersection);
+		
+		assertEquals(union.toString(), myTree.union(other).toString());
+		assertEquals(intersection.toString(), myTree.intersection(other).toString());
+		assertEquals(difference.toString(), myTree.difference(other).toString());
+		assertEquals(symmetric.toString(), myTree.symmetricDifference(other).toString());
+		
+		assertEquals(union.toString(), myTree.union(compOther).toString());
+		assertEquals(intersection.toString(), myTree.intersection(compOther).toString());
+		assertEquals(difference.toString(), myTree.difference(compOther).toString());
+		assertEquals(symmetric.toString(), myTree.symmetricDifference(compOther).toString());
+		
+		MyTreeSet<Integer> result = myTree.union(other);
+		assertEquals(union.size(), result.size());
+		assertTrue(result.height() <= 1 + Math.log(result.size()) / Math.log(2));
+		assertEquals(oracle.toString(), myTree.toString());
+	}
+	
+	@Test
+	public void testSetAlgebraWithDifferentComparators(){
+		Comparator<Integer> byAbsoluteValue = new Comparator<Integer>(){
+			public int compare(Integer o1, Integer o2){
+				return Integer.compare(Math.abs(o1), Math.abs(o2));
+			}
+		};
+		MyTreeSet<Integer> absTree = new MyTreeSet<Integer>(byAbsoluteValue);
+		absTree.add(1);
+		absTree.add(2);
+		MyTreeSet<Integer> other = new MyTreeSet<Integer>();
+		Integer[] input = {3, -3, 2, -2};
+		for (Integer val : input){
+			other.add(val);
+		}
+		
+		// 2 and -2, and 3 and -3, are the same element in absTree's order.
+		assertEquals("[1, 2, -3]", absTree.union(other).toString());
+		assertEquals("[2]", absTree.intersection(other).toString());
+		assertEquals("[1]", absTree.difference(other).toString());
+		assertEquals("[1, -3]", absTree.symmetricDifference(other).toString());
+		assertEquals(2, absTree.symmetricDifference(other).size());
+		
+		absTree.symmetricDifferenceWith(other);
+		assertEquals("[1, -3]", absTree.toString());
+		assertEquals(2, absTree.size());
+	}
+	
+	@Test
+	public void testSetAlgebraInPlace(){
+		Integer[] input = {5, 6, 4, 7, 3, 8, 2, 9, 1, 10};
+		MyTreeSet<Integer> other = new MyTreeSet<Integer>(Balancing.AVL);
+		for (Integer val : input){
+			myTree.add(val);
+			other.add(val + 5);
+		}
+		
+		MyTreeSet<Integer> tree = myTree.union(myTree);
+		tree.unionWith(other);
+		assertEquals("[1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15]", tree.toString());
+		assertEquals(15, tree.size());
+		
+		tree.differenceWith(other);
+		assertEquals("[1, 2, 3, 4, 5]", tree.toString());
+		
+		tree.symmetricDifferenceWith(myTree);
+		assertEquals("[6, 7, 8, 9, 10]", tree.toString());
+		
+		tree.intersectWith(other);
+		assertEquals("[6, 7, 8, 9, 10]", tree.toString());
+		assertEquals(5, tree.size());
+		
+		tree.intersectWith(new MyTreeSet<Integer>());
+		assertEquals("[]", tree.toString());
+		assertEquals(0, tree.size());
+		tree.add(1);
+		assertEquals("[1]", tree.toString());
+	}
+	
+	@Test (expected=ConcurrentModificationException.class)
+	public void testSetAlgebraInPlaceConcurrentException(){
+		myTree.add(1);
+		Iterator<Integer> iter = myTree.iterator();
+		myTree.unionWith(new MyTreeSet<Integer>());
+		iter.next();
+	}
+	
+	@Test
+	public void testOrderStatistics(){
+		Random rnd = new Random();
+		for (Balancing balancing : Balancing.values()){
+			MyTreeSet<Integer> tree = new MyTreeSet<Integer>(balancing, true);
+			MyTreeSet<Integer> compTree = new MyTreeSet<Integer>(new IntegerComparator(), balancing, true);
+			TreeSet<Integer> oracle = new TreeSet<Integer>();
+			TreeSet<Integer> compOracle = new TreeSet<Integer>(new IntegerComparator());
+			
+			for (int i=0; i < 5000; ++i){
+				Integer val = rnd.nextInt(500);
+				if (rnd.nextInt(3) != 0){
+					tree.add(val);
+					oracle.add(val);
+					compTree.add(val);
+					compOracle.add(val);
+				} else {
+					tree.remove(val);
+					oracle.remove(val);
+					compTree.remove(val);
+					compOracle.remove(val);
+				}
+				
+				assertEquals(oracle.headSet(val).size(), tree.rank(val));
+				assertEquals(compOracle.headSet(val).size(), compTree.rank(val));
+				if (i % 50 == 0){
+					ArrayList<Integer> ordered = new ArrayList<Integer>(oracle);
+					for (int j=0; j < ordered.size(); ++j){
+						assertEquals(ordered.get(j), tree.select(j));
+					}
+				}
+			}
+			
+			for (int from=-1; from <= 500; from += 7){
+				for (int to=from; to <= 501; to += 11){
+					assertEquals(oracle.subSet(from, to).size(), tree.countInRange(from, to));
+					assertEquals(oracle.subSet(from, false, to, true).size(), tree.countInRange(from, false, to, true));
+					assertEquals(oracle.subSet(from, false, to, true).size(), tree.subSet(from, false, to, true).size());
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testOrderStatisticsAfterAddAllAndSetAlgebra(){
+		ArrayList<Integer> input = new ArrayList<Integer>();
+		for (int i=0; i < 1000; ++i){
+			input.add(i * 2);
+		}
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL, true);
+		tree.addAll(input);
+		assertEquals(500, tree.rank(1000));
+		assertEquals(Integer.valueOf(1000), tree.select(500));
+		
+		MyTreeSet<Integer> other = new MyTreeSet<Integer>();
+		for (int i=0; i < 1000; ++i){
+			other.add(i * 3);
+		}
+		MyTreeSet<Integer> intersection = tree.intersection(other);
+		assertEquals(334, intersection.size());
+		assertEquals(Integer.valueOf(6), intersection.select(1));
+		assertEquals(2, intersection.countInRange(0, 12));
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testRankWithoutOrderStatistics(){
+		myTree.add(1);
+		myTree.rank(1);
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testSelectOutOfBounds(){
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL, true);
+		tree.add(1);
+		tree.select(1);
+	}
+	
+	@Test
+	public void testSpliteratorCharacteristics(){
+		for (int i=0; i < 100; ++i){
+			myTree.add(i);
+		}
+		Spliterator<Integer> spliterator = myTree.spliterator();
+		assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+		assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED));
+		assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+		assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+		assertTrue(spliterator.hasCharacteristics(Spliterator.NONNULL));
+		assertEquals(100, spliterator.getExactSizeIfKnown());
+		assertNull(spliterator.getComparator());
+		
+		IntegerComparator comp = new IntegerComparator();
+		MyTreeSet<Integer> compTree = new MyTreeSet<Integer>(comp);
+		assertSame(comp, compTree.spliterator().getComparator());
+	}
+	
+	@Test
+	public void testSpliteratorSplitsCoverAllElements(){
+		Random rnd = new Random();
+		for (Balancing balancing : Balancing.values()){
+			MyTreeSet<Integer> tree = new MyTreeSet<Integer>(balancing, balancing == Balancing.AVL);
+			TreeSet<Integer> oracle = new TreeSet<Integer>();
+			for (int i=0; i < 10000; ++i){
+				Integer val = rnd.nextInt(100000);
+				tree.add(val);
+				oracle.add(val);
+			}
+			
+			ArrayList<Spliterator<Integer>> parts = new ArrayList<Spliterator<Integer>>();
+			parts.add(tree.spliterator());
+			for (int round=0; round < 6; ++round){
+				ArrayList<Spliterator<Integer>> split = new ArrayList<Spliterator<Integer>>();
+				for (Spliterator<Integer> part : parts){
+					Spliterator<Integer> prefix = part.trySplit();
+					if (prefix != null){
+						split.add(prefix);
+					}
+					split.add(part);
+				}
+				parts = split;
+			}
+			
+			final ArrayList<Integer> collected = new ArrayList<Integer>();
+			for (Spliterator<Integer> part : parts){
+				long expected = part.getExactSizeIfKnown();
+				int before = collected.size();
+				part.forEachRemaining(new java.util.function.Consumer<Integer>(){
+					public void accept(Integer val){
+						collected.add(val);
+					}
+				});
+				if (expected >= 0){
+					assertEquals(expected, collected.size() - before);
+				}
+			}
+			assertEquals(new ArrayList<Integer>(oracle), collected);
+		}
+	}
+	
+	@Test
+	public void testParallelStream(){
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL);
+		long expected = 0;
+		for (int i=0; i < 100000; ++i){
+			tree.add(i);
+			expected += i;
+		}
+		
+		long sum = 0;
+		for (Object val : tree.parallelStream().toArray()){
+			sum += (Integer) val;
+		}
+		assertEquals(expected, sum);
+		assertEquals(100000, tree.parallelStream().count());
+		assertEquals(Integer.valueOf(0), tree.parallelStream().findFirst().get());
+		assertEquals(tree.toString(), tree.stream().collect(java.util.stream.Collectors.toList()).toString());
+	}
+	
+	@Test
+	public void testSpliteratorSplitsSortedUnbalancedSetEvenly(){
+		for (boolean orderStatistics : new boolean[] {false, true}){
+			// Added in ascending order, the unbalanced tree is a list leaning right.
+			MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.NONE, orderStatistics);
+			for (int i=0; i < 4096; ++i){
+				tree.add(i);
+			}
+			
+			ArrayList<Spliterator<Integer>> parts = new ArrayList<Spliterator<Integer>>();
+			parts.add(tree.spliterator());
+			for (int round=0; round < 4; ++round){
+				ArrayList<Spliterator<Integer>> split = new ArrayList<Spliterator<Integer>>();
+				for (Spliterator<Integer> part : parts){
+					Spliterator<Integer> prefix = part.trySplit();
+					assertNotNull(prefix);
+					split.add(prefix);
+					split.add(part);
+				}
+				parts = split;
+			}
+			
+			final int[] count = new int[1];
+			int expected = 0;
+			for (Spliterator<Integer> part : parts){
+				assertEquals(256, part.estimateSize());
+				count[0] = 0;
+				part.forEachRemaining(new java.util.function.Consumer<Integer>(){
+					public void accept(Integer val){
+						++count[0];
+					}
+				});
+				assertEquals(256, count[0]);
+				expected += count[0];
+			}
+			assertEquals(4096, expected);
+			
+			long sum = 0;
+			for (Object val : tree.parallelStream().toArray()){
+				sum += (Integer) val;
+			}
+			assertEquals(4095L * 4096 / 2, sum);
+		}
+	}
+	
+	@Test
+	public void testSpliteratorSizeAfterPartialTraversal(){
+		for (boolean orderStatistics : new boolean[] {false, true}){
+			MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL, orderStatistics);
+			for (int i=0; i < 100; ++i){
+				tree.add(i);
+			}
+			java.util.function.Consumer<Integer> ignore = new java.util.function.Consumer<Integer>(){
+				public void accept(Integer val){
+				}
+			};
+			
+			Spliterator<Integer> spliterator = tree.spliterator();
+			for (int i=0; i < 30; ++i){
+				assertTrue(spliterator.tryAdvance(ignore));
+			}
+			assertEquals(70, spliterator.estimateSize());
+			assertEquals(70, spliterator.getExactSizeIfKnown());
+			
+			Spliterator<Integer> prefix = spliterator.trySplit();
+			assertEquals(100 - 30, prefix.estimateSize() + spliterator.estimateSize());
+			spliterator.forEachRemaining(ignore);
+			assertEquals(0, spliterator.estimateSize());
+		}
+	}
+	
+	@Test (expected=ConcurrentModificationException.class)
+	public void testSpliteratorConcurrentException(){
+		myTree.add(1);
+		Spliterator<Integer> spliterator = myTree.spliterator();
+		myTree.add(2);
+		spliterator.tryAdvance(new java.util.function.Consumer<Integer>(){
+			public void accept(Integer val){
+			}
+		});
+	}
+	
+	@Test
+	public void testIteratorRemoveDoesNotSearch(){
+		final int[] comparisons = new int[1];
+		Comparator<Integer> counting = new Comparator<Integer>(){
+			public int compare(Integer o1, Integer o2){
+				++comparisons[0];
+				return o1.compareTo(o2);
+			}
+		};
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(counting);
+		ArrayList<Integer> kept = new ArrayList<Integer>();
+		for (int i=0; i < 5000; ++i){
+			tree.add(i);
+		}
+		
+		// The unbalanced tree is a single chain, so any search would be O(n).
+		comparisons[0] = 0;
+		Iterator<Integer> iter = tree.iterator();
+		while (iter.hasNext()){
+			int value = iter.next();
+			if (value % 3 != 0){
+				iter.remove();
+			} else {
+				kept.add(value);
+			}
+		}
+		assertEquals(0, comparisons[0]);
+		assertEquals(kept.size(), tree.size());
+		assertEquals(kept.toString(), tree.toString());
+		for (int value : kept){
+			assertTrue(tree.contains(value));
+		}
+		
+		iter = tree.descendingIterator();
+		while (iter.hasNext()){
+			iter.next();
+			iter.remove();
+		}
+		assertEquals(0, tree.size());
+		assertEquals("[]", tree.toString());
+	}
+	
+	@Test
+	public void testMetrics() throws Exception{
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL);
+		MyTreeSetMetrics metrics = tree.enableMetrics();
+		assertSame(metrics, tree.enableMetrics());
+		
+		for (int i=0; i < 1000; ++i){
+			tree.add(i);
+		}
+		for (int i=0; i < 500; ++i){
+			tree.contains(i);
+		}
+		Iterator<Integer> iter = tree.iterator();
+		iter.next();
+		iter.remove();
+		tree.remove(1);
+		
+		assertEquals(1000, metrics.getAddCount());
+		assertEquals(500, metrics.getContainsCount());
+		assertEquals(2, metrics.getRemoveCount());
+		assertEquals(1, metrics.getIteratorCount());
+		assertTrue(metrics.getComparisonCount() > 0);
+		assertTrue(metrics.getComparisonsPerOperation() <= tree.height());
+		
+		// Only add, remove and contains count towards the average.
+		double perOperation = metrics.getComparisonsPerOperation();
+		long comparisons = metrics.getComparisonCount();
+		tree.floor(500);
+		tree.union(new MyTreeSet<Integer>(new IntegerComparator()));
+		assertTrue(metrics.getComparisonCount() > comparisons);
+		assertEquals(perOperation, metrics.getComparisonsPerOperation(), 0);
+		
+		int[] histogram = metrics.getDepthHistogram();
+		int nodes = 0;
+		for (int count : histogram){
+			nodes += count;
+		}
+		assertEquals(1, histogram[0]);
+		assertEquals(tree.size(), nodes);
+		assertEquals(tree.height(), metrics.getHeight());
+		assertTrue(metrics.getEstimatedBytes() > 998 * 32);
+		
+		javax.management.ObjectName name = metrics.register("testMetrics");
+		javax.management.MBeanServer server = java.lang.management.ManagementFactory.getPlatformMBeanServer();
+		assertEquals(1000L, server.getAttribute(name, "AddCount"));
+		assertEquals(998, server.getAttribute(name, "Size"));
+		server.invoke(name, "reset", null, null);
+		assertEquals(0L, metrics.getAddCount());
+		metrics.unregister();
+		assertFalse(server.isRegistered(name));
+		
+		// Turned off, nothing is counted and the comparator is unwrapped.
+		tree.disableMetrics();
+		assertNull(tree.getMetrics());
+		tree.add(5000);
+		assertEquals(0L, metrics.getAddCount());
+		assertEquals(0L, metrics.getComparisonCount());
+		
+		MyTreeSet<Integer> other = new MyTreeSet<Integer>();
+		other.add(-1);
+		tree.enableMetrics();
+		assertEquals(tree.size() + 1, tree.union(other).size());
+		assertNull(tree.union(other).getMetrics());
+	}
+	
+	@Test
+	public void testSplayMovesAccessedElementToRoot(){
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.SPLAY);
+		for (int i=0; i < 1000; ++i){
+			tree.add(i);
+			assertEquals(Integer.valueOf(i), tree.getRoot().getValue());
+		}
+		
+		assertTrue(tree.contains(500));
+		assertEquals(Integer.valueOf(500), tree.getRoot().getValue());
+		assertFalse(tree.contains(-1));
+		assertEquals(Integer.valueOf(0), tree.getRoot().getValue());
+		assertEquals(Integer.valueOf(700), tree.floor(700));
+		assertEquals(Integer.valueOf(700), tree.getRoot().getValue());
+		tree.add(250);
+		assertEquals(Integer.valueOf(250), tree.getRoot().getValue());
+		
+		// Once a hot key has been found, finding it again costs one comparison.
+		assertTrue(tree.contains(42));
+		MyTreeSetMetrics metrics = tree.enableMetrics();
+		for (int i=0; i < 100; ++i){
+			assertTrue(tree.contains(42));
+		}
+		assertEquals(100L, metrics.getComparisonCount());
+		
+		tree.remove(42);
+		assertFalse(tree.contains(42));
+		assertEquals(999, tree.size());
+		assertLinksIntact(tree);
+	}
+	
+	@Test
+	public void testSplayRandomOperations(){
+		Random rnd = new Random();
+		for (boolean orderStatistics : new boolean[] {false, true}){
+			MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.SPLAY, orderStatistics);
+			TreeSet<Integer> oracle = new TreeSet<Integer>();
+			
+			for (int i=0; i < 20000; ++i){
+				// Skewed towards a few hot keys.
+				Integer val = rnd.nextInt(4) == 0 ? rnd.nextInt(2000) : rnd.nextInt(20);
+				switch (rnd.nextInt(4)){
+				case 0:
+					tree.add(val);
+					oracle.add(val);
+					break;
+				case 1:
+					tree.remove(val);
+					oracle.remove(val);
+					break;
+				case 2:
+					assertEquals(oracle.ceiling(val), tree.ceiling(val));
+					assertEquals(oracle.lower(val), tree.lower(val));
+					break;
+				default:
+					assertEquals(oracle.contains(val), tree.contains(val));
+				}
+				assertEquals(oracle.size(), tree.size());
+				if (orderStatistics && !oracle.isEmpty()){
+					assertEquals(oracle.headSet(val).size(), tree.rank(val));
+				}
+				if (i % 1000 == 0){
+					assertLinksIntact(tree);
+				}
+			}
+			assertEquals(oracle.toString(), tree.toString());
+			assertLinksIntact(tree);
+		}
+	}
+	
+	@Test
+	public void testSplayIteratorSurvivesLookups(){
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.SPLAY);
+		for (int i=0; i < 100; ++i){
+			tree.add(i);
+		}
+		
+		int expected = 0;
+		Iterator<Integer> iter = tree.iterator();
+		while (iter.hasNext()){
+			Integer val = iter.next();
+			assertEquals(Integer.valueOf(expected++), val);
+			tree.contains(99 - val);
+			tree.higher(val);
+			if (val % 3 == 0){
+				iter.remove();
+			}
+		}
+		assertEquals(100, expected);
+		assertEquals(66, tree.size());
+		assertLinksIntact(tree);
+	}
+	
+	@Test
+	public void testCursorMatchesOracle(){
+		Random rnd = new Random();
+		for (Balancing balancing : Balancing.values()){
+			MyTreeSet<Integer> tree = new MyTreeSet<Integer>(balancing);
+			TreeSet<Integer> oracle = new TreeSet<Integer>();
+			for (int i=0; i < 2000; ++i){
+				Integer val = rnd.nextInt(10000);
+				tree.add(val);
+				oracle.add(val);
+			}
+			
+			MyTreeSet<Integer>.Cursor cursor = tree.cursor();
+			assertNull(cursor.current());
+			assertNull(cursor.prev());
+			assertEquals(oracle.first(), cursor.next());
+			
+			// Where the cursor is when current is null: after the last element or before the first.
+			boolean atEnd = false;
+			Integer target = 5000;
+			for (int i=0; i < 20000; ++i){
+				Integer current = cursor.current();
+				Integer expected;
+				switch (rnd.nextInt(4)){
+				case 0:
+					target = rnd.nextInt(10002) - 1;
+					assertEquals(oracle.contains(target), cursor.seek(target));
+					expected = oracle.ceiling(target);
+					atEnd = true;
+					break;
+				case 1:
+					target = Math.max(-1, Math.min(10000, target + rnd.nextInt(41) - 20));
+					assertEquals(oracle.contains(target), cursor.seek(target));
+					expected = oracle.ceiling(target);
+					atEnd = true;
+					break;
+				case 2:
+					expected = current != null ? oracle.higher(current) : atEnd ? null : oracle.first();
+					assertEquals(expected, cursor.next());
+					atEnd = true;
+					break;
+				default:
+					expected = current != null ? oracle.lower(current) : atEnd ? oracle.last() : null;
+					assertEquals(expected, cursor.prev());
+					atEnd = false;
+				}
+				assertEquals(expected, cursor.current());
+			}
+			assertLinksIntact(tree);
+		}
+	}
+	
+	@Test
+	public void testCursorSortedProbesAreCheap(){
+		ArrayList<Integer> elements = new ArrayList<Integer>();
+		for (int i=0; i < 100000; ++i){
+			elements.add(2 * i);
+		}
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL);
+		tree.addAll(elements);
+		MyTreeSetMetrics metrics = tree.enableMetrics();
+		
+		MyTreeSet<Integer>.Cursor cursor = tree.cursor();
+		cursor.seek(0);
+		metrics.reset();
+		for (int i=0; i < 200000; ++i){
+			assertEquals(i % 2 == 0, cursor.seek(i));
+		}
+		assertNull(cursor.next());
+		// From the root each seek would take about 17 comparisons.
+		assertTrue(metrics.getComparisonCount() <= 3 * 200000);
+		
+		// A sliding window of 32 elements moved forward by 16 at a time 
+		// costs fewer comparisons than finding each window from the root.
+		metrics.reset();
+		int seen = 0;
+		for (int from=0; from < 32000; from += 32){
+			cursor.seek(from);
+			for (int i=0; i < 32; ++i){
+				assertEquals(Integer.valueOf(from + 2 * i), cursor.current());
+				++seen;
+				cursor.next();
+			}
+		}
+		assertEquals(1000 * 32, seen);
+		long fingerComparisons = metrics.getComparisonCount();
+		metrics.reset();
+		for (int from=0; from < 32000; from += 32){
+			tree.ceiling(from);
+		}
+		assertTrue(fingerComparisons < metrics.getComparisonCount());
+		
+		// Jumping far away still works, at the cost of a longer climb.
+		assertTrue(cursor.seek(199998));
+		assertTrue(cursor.seek(2));
+		assertEquals(Integer.valueOf(0), cursor.prev());
+	}
+	
+	@Test
+	public void testCursorAfterModification(){
+		MyTreeSet<Integer> tree = new MyTreeSet<Integer>(Balancing.AVL);
+		for (int i=0; i < 100; ++i){
+			tree.add(i);
+		}
+		
+		MyTreeSet<Integer>.Cursor cursor = tree.cursor();
+		assertTrue(cursor.seek(50));
+		tree.remove(50);
+		tree.remove(51);
+		assertEquals(Integer.valueOf(50), cursor.current());
+		assertEquals(Integer.valueOf(52), cursor.next());
+		
+		cursor.seek(60);
+		tree.remove(60);
+		assertEquals(Integer.valueOf(59), cursor.prev());
+		
+		cursor.seek(70);
+		tree.remove(70);
+		assertFalse(cursor.seek(70));
+		assertEquals(Integer.valueOf(71), cursor.current());
+		tree.add(70);
+		assertTrue(cursor.seek(70));
+		
+		cursor.seek(1000);
+		assertNull(cursor.current());
+		tree.add(1000);
+		assertEquals(Integer.valueOf(1000), cursor.prev());
+		for (int i=0; i <= 1000; ++i){
+			tree.remove(i);
+		}
+		assertFalse(cursor.seek(5));
+		assertNull(cursor.prev());
+		assertNull(cursor.next());
+	}
+	
+	/**
+	 * Checks that the parent links match the children and that the linked 
+	 * list, walked in both directions, has the order of the tree.
+	 */
+	private static void assertLinksIntact(MyTreeSet<Integer> tree){
+		ArrayList<Integer> inOrder = new ArrayList<Integer>();
+		ArrayList<Node<Integer>> stack = new ArrayList<Node<Integer>>();
+		Node<Integer> currNode = tree.getRoot();
+		if (currNode != null){
+			assertNull(currNode.getParent());
+		}
+		while (currNode != null || !stack.isEmpty()){
+			while (currNode != null){
+				if (currNode.getLeftChild() != null){
+					assertSame(currNode, currNode.getLeftChild().getParent());
+				}
+				if (currNode.getRightChild() != null){
+					assertSame(currNode, currNode.getRightChild().getParent());
+				}
+				stack.add(currNode);
+				currNode = currNode.getLeftChild();
+			}
+			currNode = stack.remove(stack.size() - 1);
+			inOrder.add(currNode.getValue());
+			currNode = currNode.getRightChild();
+		}
+		
+		ArrayList<Integer> forward = new ArrayList<Integer>();
+		for (Node<Integer> node = tree.getHead().getNextLargest(); node != tree.getTail(); node = node.getNextLargest()){
+			forward.add(node.getValue());
+		}
+		ArrayList<Integer> backward = new ArrayList<Integer>();
+		for (Node<Integer> node = tree.getTail().getNextSmallest(); node != tree.getHead(); node = node.getNextSmallest()){
+			backward.add(0, node.getValue());
+		}
+		assertEquals(inOrder, forward);
+		assertEquals(inOrder, backward);
+		assertEquals(tree.size(), inOrder.size());
+	}
+	
 }
 
 
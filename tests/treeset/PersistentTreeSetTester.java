@@ -0,0 +1,181 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PersistentTreeSetTester {
+
+	private PersistentTreeSet<Integer> mySet;
+	
+	@Before
+	public void setUp(){
+		mySet = new PersistentTreeSet<Integer>();
+	}
+	
+	@Test
+	public void testAgainstOracle(){
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		Random rnd = new Random();
+		for (int i=0; i < 20000; ++i){
+			int value = rnd.nextInt(3000);
+			if (rnd.nextBoolean()){
+				mySet.add(value);
+				oracle.add(value);
+			} else {
+				mySet.remove(value);
+				oracle.remove(value);
+			}
+		}
+		
+		assertEquals(oracle.size(), mySet.size());
+		assertEquals(oracle.toString(), mySet.toString());
+		assertEquals(oracle.first(), mySet.first());
+		assertEquals(oracle.last(), mySet.last());
+		for (int i=-1; i <= 3000; ++i){
+			assertEquals(oracle.contains(i), mySet.contains(i));
+			assertEquals(oracle.floor(i), mySet.floor(i));
+			assertEquals(oracle.ceiling(i), mySet.ceiling(i));
+			assertEquals(oracle.lower(i), mySet.lower(i));
+			assertEquals(oracle.higher(i), mySet.higher(i));
+		}
+	}
+	
+	@Test
+	public void testSnapshotIsUnaffectedByLaterChanges(){
+		for (int i=0; i < 100; ++i){
+			mySet.add(i);
+		}
+		PersistentTreeSet<Integer>.Snapshot snapshot = mySet.snapshot();
+		String before = snapshot.toString();
+		
+		for (int i=0; i < 100; i += 2){
+			mySet.remove(i);
+		}
+		mySet.add(500);
+		
+		assertEquals(before, snapshot.toString());
+		assertEquals(100, snapshot.size());
+		assertTrue(snapshot.contains(50));
+		assertFalse(snapshot.contains(500));
+		assertEquals(51, mySet.size());
+		assertFalse(mySet.contains(50));
+	}
+	
+	@Test
+	public void testRangeQueries(){
+		TreeSet<Integer> oracle = new TreeSet<Integer>();
+		for (int i=0; i < 200; i += 3){
+			mySet.add(i);
+			oracle.add(i);
+		}
+		PersistentTreeSet<Integer>.Snapshot snapshot = mySet.snapshot();
+		
+		for (int from=-2; from < 202; from += 7){
+			for (int to=from; to < 205; to += 5){
+				boolean fromInclusive = from % 2 == 0;
+				boolean toInclusive = to % 2 == 0;
+				ArrayList<Integer> expected = new ArrayList<Integer>(oracle.subSet(from, fromInclusive, to, toInclusive));
+				ArrayList<Integer> actual = new ArrayList<Integer>();
+				Iterator<Integer> iter = snapshot.iterator(from, fromInclusive, to, toInclusive);
+				while (iter.hasNext()){
+					actual.add(iter.next());
+				}
+				assertEquals(expected, actual);
+				assertEquals(expected.size(), snapshot.countInRange(from, fromInclusive, to, toInclusive));
+			}
+		}
+	}
+	
+	@Test
+	public void testIterators(){
+		PersistentTreeSet<Integer> set = new PersistentTreeSet<Integer>(new IntegerComparator());
+		for (int i=0; i < 10; ++i){
+			set.add(i);
+		}
+		
+		Iterator<Integer> iter = set.iterator();
+		while (iter.hasNext()){
+			int value = iter.next();
+			set.add(100 + value);
+			if (value % 2 == 0){
+				iter.remove();
+			}
+		}
+		assertEquals("[109, 108, 107, 106, 105, 104, 103, 102, 101, 100, 9, 7, 5, 3, 1]", set.toString());
+		
+		try {
+			Iterator<Integer> snapshotIter = set.snapshot().iterator();
+			snapshotIter.next();
+			snapshotIter.remove();
+			fail();
+		} catch (UnsupportedOperationException e){
+		}
+	}
+	
+	@Test(expected=NoSuchElementException.class)
+	public void testFirstOfEmptySnapshot(){
+		mySet.snapshot().first();
+	}
+	
+	@Test
+	public void testConcurrentWritersAndSnapshotReaders() throws InterruptedException{
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		
+		for (int t=0; t < 4; ++t){
+			final int id = t;
+			threads.add(new Thread(new Runnable(){
+				public void run(){
+					for (int i=id; i < 20000; i += 4){
+						mySet.add(i);
+					}
+				}
+			}));
+		}
+		for (int t=0; t < 2; ++t){
+			threads.add(new Thread(new Runnable(){
+				public void run(){
+					try {
+						for (int i=0; i < 200; ++i){
+							PersistentTreeSet<Integer>.Snapshot snapshot = mySet.snapshot();
+							int count = 0;
+							Integer previous = null;
+							for (Integer value : snapshot){
+								if (previous != null && previous >= value){
+									throw new AssertionError("Out of order");
+								}
+								previous = value;
+								++count;
+							}
+							if (count != snapshot.size()){
+								throw new AssertionError("Size " + snapshot.size() + " but " + count + " elements");
+							}
+						}
+					} catch (Throwable e){
+						failure.compareAndSet(null, e);
+					}
+				}
+			}));
+		}
+		
+		for (Thread thread : threads){
+			thread.start();
+		}
+		for (Thread thread : threads){
+			thread.join();
+		}
+		
+		assertNull(failure.get());
+		assertEquals(20000, mySet.size());
+	}
+	
+}
@@ -0,0 +1,162 @@
+package treeset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.Iterator;
+
+/**
+ * Behaviour shared by IntTreeSet and LongTreeSet. The values are handled as
+ * longs and each tester adapts its set to that, so the two specializations
+ * are held to the same tests. The class isn't named Tester, so it is only
+ * run through its subclasses.
+ */
+public abstract class PrimitiveTreeSetTests {
+
+	/**
+	 * A primitive set seen through long values.
+	 */
+	interface Target {
+		void add(long value);
+		boolean contains(long value);
+		void remove(long value);
+		int size();
+		PrimitiveIterator.OfLong iterator();
+	}
+
+	/**
+	 * Creates an empty set in natural order.
+	 */
+	abstract Target newSet();
+
+	/**
+	 * Creates an empty set in reverse order.
+	 */
+	abstract Target newReverseSet();
+
+	/**
+	 * Returns the value the random values of the tests are centred on.
+	 */
+	abstract long base();
+
+	/**
+	 * Returns a value from the whole range of the set's type.
+	 */
+	abstract long randomValue(Random rnd);
+
+	Target set = newSet();
+
+	@Test
+	public void testAddContainsAndRemove(){
+		assertFalse(set.contains(5));
+		assertEquals(0, set.size());
+		set.add(5);
+		set.add(5);
+		assertTrue(set.contains(5));
+		assertEquals(1, set.size());
+		set.remove(5);
+		set.remove(5);
+		assertFalse(set.contains(5));
+		assertEquals(0, set.size());
+	}
+
+	@Test
+	public void testAddAndRemoveSortedElements(){
+		TreeSet<Long> oracle = new TreeSet<Long>();
+
+		for (int i=0; i < 100000; ++i){
+			set.add(base() + i);
+			oracle.add(base() + i);
+		}
+		assertEquals(oracle.size(), set.size());
+		assertEquals(oracle.toString(), set.toString());
+
+		for (int i=0; i < 100000; i += 3){
+			set.remove(base() + i);
+			oracle.remove(base() + i);
+		}
+		assertEquals(oracle.size(), set.size());
+		assertEquals(oracle.toString(), set.toString());
+	}
+
+	@Test
+	public void testAddAndRemoveRandomElements(){
+		Random rnd = new Random();
+		Target compSet = newReverseSet();
+		TreeSet<Long> oracle = new TreeSet<Long>();
+		TreeSet<Long> compOracle = new TreeSet<Long>(Collections.<Long>reverseOrder());
+
+		for (int i=0; i < 20000; ++i){
+			long val = base() + rnd.nextInt(2000) - 1000;
+			if (rnd.nextBoolean()){
+				set.add(val);
+				oracle.add(val);
+				compSet.add(val);
+				compOracle.add(val);
+			} else {
+				set.remove(val);
+				oracle.remove(val);
+				compSet.remove(val);
+				compOracle.remove(val);
+			}
+			assertEquals(oracle.contains(val), set.contains(val));
+			assertEquals(compOracle.contains(val), compSet.contains(val));
+			assertEquals(oracle.size(), set.size());
+			assertEquals(compOracle.size(), compSet.size());
+		}
+		assertEquals(oracle.toString(), set.toString());
+		assertEquals(compOracle.toString(), compSet.toString());
+	}
+
+	@Test
+	public void testIteratorRemove(){
+		TreeSet<Long> oracle = new TreeSet<Long>();
+		Random rnd = new Random();
+		for (int i=0; i < 1000; ++i){
+			long val = randomValue(rnd);
+			set.add(val);
+			oracle.add(val);
+		}
+
+		PrimitiveIterator.OfLong iter = set.iterator();
+		Iterator<Long> oracleIter = oracle.iterator();
+		while (iter.hasNext()){
+			long val = iter.nextLong();
+			assertEquals(oracleIter.next().longValue(), val);
+			if (rnd.nextBoolean()){
+				iter.remove();
+				oracleIter.remove();
+			}
+		}
+		assertFalse(oracleIter.hasNext());
+		assertEquals(oracle.size(), set.size());
+		assertEquals(oracle.toString(), set.toString());
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testIteratorRemoveWithoutCallingNext(){
+		set.add(5);
+		set.iterator().remove();
+	}
+
+	@Test(expected=NoSuchElementException.class)
+	public void testIteratorNoSuchElementException(){
+		set.iterator().nextLong();
+	}
+
+	@Test(expected=ConcurrentModificationException.class)
+	public void testIteratorConcurrentException(){
+		set.add(1);
+		PrimitiveIterator.OfLong iter = set.iterator();
+		set.add(2);
+		iter.nextLong();
+	}
+
+}